@@ -0,0 +1,59 @@
+#!/usr/bin/env bash
+# =======================================================================
+# ADMIN API POLLING BENCHMARK
+# =======================================================================
+# Shows what ETags save for admin screens that poll the user API.
+# Runs the load test (mvn -Ploadtest verify) twice, with only admin_poll
+# visitors: each one fetches /admin/api/users plus its first USERS users
+# one by one, waits, and does it again.
+#   plain       - full GET every time
+#   conditional - If-None-Match with the last ETag (mostly 304s)
+# The second report is compared with the first: KB sent back per request,
+# latency, and rows PostgreSQL read per table.
+#
+# Usage:   scripts/admin-api-polling-benchmark.sh [SCREENS] [SECONDS] [USERS] [POLL_MS]
+#          (default 20 admin screens, 60 s, 20 single users, a round every 2 s)
+# Needs:   Java 17+ (the embedded PostgreSQL comes with the load test).
+#
+# Last measured (2026-10-19, 1 CPU, defaults, 60 seeded accounts):
+#                        plain        conditional
+#   list KB/request      16.65        0 (all 304)
+#   user KB/request      0.28         0 (all 304)
+#   p99 (all requests)   74.1 ms      31.0 ms
+#   users rows read      1,083,209    469,599  (91 -> 44 per request)
+# The table is tiny, so PostgreSQL scans it instead of using the index.
+# =======================================================================
+set -euo pipefail
+
+SCREENS="${1:-20}"
+SECONDS_PER_RUN="${2:-60}"
+USERS="${3:-20}"
+POLL_MS="${4:-2000}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+REPORTS="${ROOT}/loadtest-reports"
+
+# run_mode LABEL [extra -D options...]
+run_mode() {
+    local label="$1"
+    shift
+    echo "🚀 Polling ${label}..."
+    (cd "${ROOT}" && mvn -B -q -Ploadtest verify -DskipTests \
+        -Dloadtest.users="${SCREENS}" \
+        -Dloadtest.duration-seconds="${SECONDS_PER_RUN}" \
+        -Dloadtest.think-time-ms="${POLL_MS}" \
+        -Dloadtest.mix=admin_poll:100 \
+        -Dloadtest.poll-users="${USERS}" \
+        -Dloadtest.label="${label}" \
+        "$@")
+}
+
+run_mode poll-plain -Dloadtest.conditional-polling=false
+PLAIN_REPORT="$(ls -td "${REPORTS}"/*-poll-plain | head -1)/report.json"
+run_mode poll-conditional -Dloadtest.conditional-polling=true -Dloadtest.baseline="${PLAIN_REPORT}"
+
+echo "========================================"
+echo "📊 ${SCREENS} admin screens, ${SECONDS_PER_RUN} s - conditional compared with plain:"
+cat "$(ls -td "${REPORTS}"/*-poll-conditional | head -1)/comparison.txt"
+echo "========================================"
+echo "Note: the conditional list check still reads every matching row (count + md5),"
+echo "but never sends them, and single users are answered from the version column."
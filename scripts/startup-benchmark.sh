@@ -0,0 +1,96 @@
+#!/usr/bin/env bash
+# =======================================================================
+# STARTUP BENCHMARK
+# =======================================================================
+# Compares how fast the app starts with the normal build versus the
+# production build (-Pprod: AOT + AppCDS + lazy init, no DevTools).
+#
+# For each configuration it starts the app RUNS times and records:
+#   - time to first request: from launching java until GET / answers 200
+#   - startup RSS: resident memory of the JVM at that moment
+#
+# Usage:   scripts/startup-benchmark.sh [RUNS]      (default 5)
+# Needs:   PostgreSQL running with the settings in application.properties,
+#          curl, and port 8080 free. The prod build also needs
+#          PAYSTACK_SECRET_KEY, SMTP_HOST and SMS_GATEWAY_URL set.
+#
+# Last measured (2026-10-19, 1 CPU, Java 17, local PostgreSQL, 5 runs):
+#   current    median 25078 ms   min 24398 ms   avg RSS 277 MB
+#   prod       median 15261 ms   min 13239 ms   avg RSS 269 MB
+# =======================================================================
+set -euo pipefail
+
+RUNS="${1:-5}"
+PORT=8080
+URL="http://localhost:${PORT}/"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+# Not under target/ - the builds below run "mvn clean"
+WORK="${ROOT}/loadtest-reports/startup-benchmark"
+JAVA="${JAVA_HOME:+${JAVA_HOME}/bin/}java"
+
+mkdir -p "${WORK}"
+
+now_ms() {
+    date +%s%3N
+}
+
+# measure NAME WORKDIR JAVA-ARGS... -> prints "ms rss_kb" per run into WORK/NAME.txt
+measure() {
+    local name="$1" dir="$2"
+    shift 2
+    : > "${WORK}/${name}.txt"
+
+    for run in $(seq 1 "${RUNS}"); do
+        local started pid code elapsed rss
+        started=$(now_ms)
+        (cd "${dir}" && exec "${JAVA}" "$@" > "${WORK}/${name}-${run}.log" 2>&1) &
+        pid=$!
+
+        code=000
+        until [ "${code}" = "200" ]; do
+            if ! kill -0 "${pid}" 2>/dev/null; then
+                echo "❌ ${name} run ${run} exited early - see ${WORK}/${name}-${run}.log" >&2
+                exit 1
+            fi
+            sleep 0.05
+            code=$(curl -s -o /dev/null -w '%{http_code}' "${URL}" || true)
+        done
+        elapsed=$(( $(now_ms) - started ))
+        rss=$(awk '/VmRSS/ {print $2}' "/proc/${pid}/status")
+
+        kill "${pid}"
+        wait "${pid}" 2>/dev/null || true
+        echo "${elapsed} ${rss}" >> "${WORK}/${name}.txt"
+        echo "   ${name} run ${run}: ${elapsed} ms, RSS $(( rss / 1024 )) MB"
+    done
+}
+
+summary() {
+    local name="$1"
+    sort -n "${WORK}/${name}.txt" | awk -v name="${name}" '
+        { ms[NR] = $1; rss += $2 }
+        END {
+            median = (NR % 2) ? ms[(NR + 1) / 2] : (ms[NR / 2] + ms[NR / 2 + 1]) / 2
+            printf "%-10s median %6d ms   min %6d ms   avg RSS %5d MB\n", name, median, ms[1], rss / NR / 1024
+        }'
+}
+
+echo "🔨 Building current configuration..."
+(cd "${ROOT}" && mvn -B -q clean package -DskipTests)
+cp "${ROOT}/target/gold-cosmetics-1.0.0.jar" "${WORK}/current.jar"
+
+echo "🔨 Building prod configuration (AOT + CDS archive)..."
+(cd "${ROOT}" && mvn -B -q clean package -DskipTests -Pprod -Dcds.skip=false)
+
+echo "⏱️  Current configuration"
+measure current "${WORK}" -jar current.jar
+
+echo "⏱️  Prod configuration"
+measure prod "${ROOT}/target/cds" -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+        -Dspring.profiles.active=prod -jar gold-cosmetics-1.0.0.jar
+
+echo "========================================"
+echo "📊 TIME TO FIRST REQUEST / STARTUP RSS (${RUNS} runs)"
+summary current
+summary prod
+echo "========================================"
@@ -0,0 +1,53 @@
+#!/usr/bin/env bash
+# =======================================================================
+# VIRTUAL THREAD BENCHMARK
+# =======================================================================
+# Runs the load test (mvn -Ploadtest verify) twice with the same settings:
+#   platform - normal mode, 200 Tomcat worker threads
+#   virtual  - "virtual-threads" profile: virtual threads + DB admission
+#              limit + BCrypt on a bounded platform pool
+# Every visitor logs in as its own customer and opens /dashboard, again and
+# again with no think time, so the server is always saturated. The second
+# report is compared with the first (throughput and p99 side by side).
+#
+# Usage:   scripts/virtual-thread-benchmark.sh [USERS] [SECONDS]   (default 1000 60)
+# Needs:   Java 21+ (the embedded PostgreSQL comes with the load test).
+#
+# The gap is widest when the database is slow (e.g. a remote PostgreSQL):
+# that is when platform threads run out while the CPU is still idle.
+#
+# Last measured (2026-10-19, 1 CPU, Java 17 - so platform mode only;
+# the virtual half needs Java 21 and has not been run yet), 200 users, 60 s:
+#   platform  23.2 req/s, GET /dashboard p99 7.6 s, POST /login p50 18.6 s,
+#             11% of logins timed out (30 s) - BCrypt saturates the one CPU
+# =======================================================================
+set -euo pipefail
+
+USERS="${1:-1000}"
+SECONDS_PER_RUN="${2:-60}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+REPORTS="${ROOT}/loadtest-reports"
+
+# run_mode LABEL [extra -D options...]
+run_mode() {
+    local label="$1"
+    shift
+    echo "🚀 Load test in ${label} mode..."
+    (cd "${ROOT}" && mvn -B -q -Pvirtual-threads,loadtest verify -DskipTests \
+        -Dloadtest.users="${USERS}" \
+        -Dloadtest.duration-seconds="${SECONDS_PER_RUN}" \
+        -Dloadtest.think-time-ms=0 \
+        -Dloadtest.mix=login:100 \
+        -Dloadtest.login-roles=customer:100 \
+        -Dloadtest.label="${label}" \
+        "$@")
+}
+
+run_mode platform
+PLATFORM_REPORT="$(ls -td "${REPORTS}"/*-platform | head -1)/report.json"
+run_mode virtual -Dloadtest.app-profiles=virtual-threads -Dloadtest.baseline="${PLATFORM_REPORT}"
+
+echo "========================================"
+echo "📊 ${USERS} users, ${SECONDS_PER_RUN} s per mode - virtual compared with platform:"
+cat "$(ls -td "${REPORTS}"/*-virtual | head -1)/comparison.txt"
+echo "========================================"
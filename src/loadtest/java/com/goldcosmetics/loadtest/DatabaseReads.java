@@ -0,0 +1,56 @@
+package com.goldcosmetics.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Rows PostgreSQL read per table during the measured window (sequential
+ * scans + index fetches, from pg_stat_user_tables). Counts everything the
+ * database did meanwhile, background workers included.
+ */
+final class DatabaseReads {
+
+    private static final String ROWS_READ =
+            "select relname, coalesce(seq_tup_read, 0) + coalesce(idx_tup_fetch, 0) as rows_read "
+          + "from pg_stat_user_tables";
+
+    /** PostgreSQL passes on each connection's counts at most every 500 ms */
+    private static final long STATS_DELAY_MS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private Map<String, Long> atStart = Map.of();
+    private final Map<String, Long> rowsRead = new TreeMap<>();
+
+    DatabaseReads(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    void start() throws InterruptedException {
+        atStart = snapshot();
+    }
+
+    void stop() throws InterruptedException {
+        for (Map.Entry<String, Long> table : snapshot().entrySet()) {
+            long read = table.getValue() - atStart.getOrDefault(table.getKey(), 0L);
+            if (read > 0) {
+                rowsRead.put(table.getKey(), read);
+            }
+        }
+    }
+
+    /** Sorted by table name; tables nobody read are left out */
+    Map<String, Long> rowsRead() {
+        return rowsRead;
+    }
+
+    private Map<String, Long> snapshot() throws InterruptedException {
+        Thread.sleep(STATS_DELAY_MS);
+        Map<String, Long> counts = new TreeMap<>();
+        jdbcTemplate.query(ROWS_READ, row -> {
+            counts.put(row.getString("relname"), row.getLong("rows_read"));
+        });
+        return counts;
+    }
+}
@@ -0,0 +1,74 @@
+package com.goldcosmetics.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram, error count, response body bytes and 304 answers per
+ * endpoint ("GET /about", "POST /login", ...).
+ *
+ * Values are microseconds, up to one minute, with 3 significant digits.
+ * Nothing is recorded until start() so warm-up traffic does not count.
+ */
+final class LatencyRecorder {
+
+    private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    static final class Endpoint {
+        final Histogram latency = new ConcurrentHistogram(MAX_MICROS, 3);
+        final LongAdder errors = new LongAdder();
+        final LongAdder bodyBytes = new LongAdder();
+        final LongAdder notModified = new LongAdder();
+    }
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private volatile boolean recording;
+    private volatile long startedNanos;
+    private volatile long stoppedNanos;
+
+    void start() {
+        startedNanos = System.nanoTime();
+        recording = true;
+    }
+
+    void stop() {
+        recording = false;
+        stoppedNanos = System.nanoTime();
+    }
+
+    void success(String endpoint, long elapsedNanos, long bodyBytes, boolean notModified) {
+        if (recording) {
+            long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), MAX_MICROS);
+            Endpoint counters = endpoint(endpoint);
+            counters.latency.recordValue(Math.max(1, micros));
+            counters.bodyBytes.add(bodyBytes);
+            if (notModified) {
+                counters.notModified.increment();
+            }
+        }
+    }
+
+    void error(String endpoint) {
+        if (recording) {
+            endpoint(endpoint).errors.increment();
+        }
+    }
+
+    double measuredSeconds() {
+        return (stoppedNanos - startedNanos) / 1e9;
+    }
+
+    /** Sorted by name so reports line up from run to run */
+    Map<String, Endpoint> endpoints() {
+        return new TreeMap<>(endpoints);
+    }
+
+    private Endpoint endpoint(String name) {
+        return endpoints.computeIfAbsent(name, key -> new Endpoint());
+    }
+}
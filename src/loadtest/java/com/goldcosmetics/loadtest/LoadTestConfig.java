@@ -0,0 +1,60 @@
+package com.goldcosmetics.loadtest;
+
+import com.goldcosmetics.model.Role;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Settings for one load test run, read from -Dloadtest.* system properties
+ * (the "loadtest" Maven profile passes them through with defaults)
+ */
+record LoadTestConfig(int users,
+                      Duration warmup,
+                      Duration duration,
+                      Duration meanThinkTime,
+                      WeightedChoice<Scenario> scenarioMix,
+                      WeightedChoice<String> loginRoles,
+                      int pollUsers,
+                      boolean conditionalPolling,
+                      String appProfiles,
+                      String label,
+                      Path outputDir,
+                      Path baseline) {
+
+    static LoadTestConfig fromSystemProperties() {
+        String baseline = System.getProperty("loadtest.baseline", "");
+        return new LoadTestConfig(
+                Integer.getInteger("loadtest.users", 100),
+                Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 15)),
+                Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 60)),
+                Duration.ofMillis(Long.getLong("loadtest.think-time-ms", 1000)),
+                WeightedChoice.parse(System.getProperty("loadtest.mix", "browse:80,login:15,register:5"),
+                        name -> Scenario.valueOf(name.toUpperCase())),
+                WeightedChoice.parse(System.getProperty("loadtest.login-roles", "customer:80,employee:15,admin:5"),
+                        name -> Role.valueOf(name.toUpperCase()).name()),
+                Integer.getInteger("loadtest.poll-users", 20),
+                Boolean.parseBoolean(System.getProperty("loadtest.conditional-polling", "true")),
+                System.getProperty("loadtest.app-profiles", ""),
+                System.getProperty("loadtest.label", ""),
+                Paths.get(System.getProperty("loadtest.output", "loadtest-reports")),
+                baseline.isBlank() ? null : Paths.get(baseline));
+    }
+
+    /** Written into the report so two runs can be checked for the same settings */
+    Map<String, Object> describe() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("users", users);
+        settings.put("warmupSeconds", warmup.toSeconds());
+        settings.put("durationSeconds", duration.toSeconds());
+        settings.put("thinkTimeMs", meanThinkTime.toMillis());
+        settings.put("mix", scenarioMix.toString());
+        settings.put("loginRoles", loginRoles.toString());
+        settings.put("pollUsers", pollUsers);
+        settings.put("conditionalPolling", conditionalPolling);
+        settings.put("appProfiles", appProfiles);
+        return settings;
+    }
+}
@@ -0,0 +1,186 @@
+package com.goldcosmetics.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes the results of a run to its own folder:
+ *   report.json - numbers per endpoint and rows read per table, for comparing runs/commits
+ *   report.txt  - the same as a table
+ *   *.hgrm      - full HdrHistogram percentile distribution per endpoint
+ * and, given a baseline report.json, prints the change against it.
+ */
+final class LoadTestReport {
+
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    record EndpointResult(String endpoint, long requests, long errors, double throughput, double errorRate,
+                          double meanMs, double p50Ms, double p90Ms, double p99Ms, double p999Ms, double maxMs,
+                          long notModified, long bodyBytes, double bodyKbPerRequest) {
+    }
+
+    private final LoadTestConfig config;
+    private final String commit;
+    private final Instant startedAt;
+    private final LatencyRecorder recorder;
+    private final Map<String, Long> rowsRead;
+    private final List<EndpointResult> results = new ArrayList<>();
+
+    LoadTestReport(LoadTestConfig config, String commit, Instant startedAt, LatencyRecorder recorder,
+                   Map<String, Long> rowsRead) {
+        this.config = config;
+        this.commit = commit;
+        this.startedAt = startedAt;
+        this.recorder = recorder;
+        this.rowsRead = rowsRead;
+
+        double seconds = recorder.measuredSeconds();
+        Histogram all = new Histogram(3);
+        long allErrors = 0;
+        long allNotModified = 0;
+        long allBodyBytes = 0;
+        for (Map.Entry<String, LatencyRecorder.Endpoint> entry : recorder.endpoints().entrySet()) {
+            LatencyRecorder.Endpoint endpoint = entry.getValue();
+            all.add(endpoint.latency);
+            allErrors += endpoint.errors.sum();
+            allNotModified += endpoint.notModified.sum();
+            allBodyBytes += endpoint.bodyBytes.sum();
+            results.add(result(entry.getKey(), endpoint.latency, endpoint.errors.sum(),
+                    endpoint.notModified.sum(), endpoint.bodyBytes.sum(), seconds));
+        }
+        results.add(result("ALL", all, allErrors, allNotModified, allBodyBytes, seconds));
+    }
+
+    Path write(Path folder) throws IOException {
+        Files.createDirectories(folder);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", config.label());
+        report.put("commit", commit);
+        report.put("startedAt", startedAt.toString());
+        report.put("measuredSeconds", recorder.measuredSeconds());
+        report.put("settings", config.describe());
+        report.put("endpoints", results);
+        report.put("databaseRowsRead", rowsRead);
+        JSON.writeValue(folder.resolve("report.json").toFile(), report);
+
+        Files.writeString(folder.resolve("report.txt"), table(), StandardCharsets.UTF_8);
+
+        for (Map.Entry<String, LatencyRecorder.Endpoint> entry : recorder.endpoints().entrySet()) {
+            String fileName = entry.getKey().replaceAll("[^A-Za-z0-9]+", "_").replaceAll("^_|_$", "") + ".hgrm";
+            try (PrintStream out = new PrintStream(folder.resolve(fileName).toFile(), StandardCharsets.UTF_8)) {
+                // Microseconds in, milliseconds out
+                entry.getValue().latency.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        return folder;
+    }
+
+    String table() {
+        StringWriter text = new StringWriter();
+        PrintWriter out = new PrintWriter(text);
+        out.printf("Run %s (commit %s) - %d users, %.0f s measured, think time %d ms, mix %s%s%n",
+                config.label(), commit, config.users(), recorder.measuredSeconds(),
+                config.meanThinkTime().toMillis(), config.scenarioMix(),
+                config.appProfiles().isBlank() ? "" : ", app profiles " + config.appProfiles());
+        out.printf("%-26s %9s %9s %7s %9s %9s %9s %9s %9s %7s %8s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms",
+                "304s", "KB/req");
+        for (EndpointResult r : results) {
+            out.printf("%-26s %9d %9.1f %6.2f%% %9.1f %9.1f %9.1f %9.1f %9.1f %7d %8.2f%n",
+                    r.endpoint(), r.requests(), r.throughput(), r.errorRate() * 100,
+                    r.p50Ms(), r.p90Ms(), r.p99Ms(), r.p999Ms(), r.maxMs(), r.notModified(), r.bodyKbPerRequest());
+        }
+        out.printf("Rows read by PostgreSQL: %s%n", rowsRead.isEmpty() ? "none" : rowsRead);
+        out.flush();
+        return text.toString();
+    }
+
+    /** Throughput and p99 change per endpoint against an earlier report.json */
+    String compareWith(Path baselineReport) throws IOException {
+        JsonNode baseline = JSON.readTree(baselineReport.toFile());
+        Map<String, JsonNode> before = new HashMap<>();
+        for (JsonNode endpoint : baseline.path("endpoints")) {
+            before.put(endpoint.path("endpoint").asText(), endpoint);
+        }
+
+        StringWriter text = new StringWriter();
+        PrintWriter out = new PrintWriter(text);
+        out.printf("Compared with %s (commit %s)%n",
+                baseline.path("label").asText(), baseline.path("commit").asText());
+        if (!baseline.path("settings").equals(JSON.valueToTree(config.describe()))) {
+            out.println("⚠️  Settings differ between the runs - compare with care");
+        }
+        out.printf("%-26s %10s %10s %8s %10s %10s %8s %9s %8s %8s %8s%n",
+                "endpoint", "req/s was", "req/s now", "change", "p99 was", "p99 now", "change", "errors",
+                "KB was", "KB now", "change");
+        for (EndpointResult now : results) {
+            JsonNode was = before.get(now.endpoint());
+            if (was == null) {
+                out.printf("%-26s %10s %10.1f %8s %10s %10.1f %8s %8.2f%% %8s %8.2f %8s%n",
+                        now.endpoint(), "-", now.throughput(), "new", "-", now.p99Ms(), "new", now.errorRate() * 100,
+                        "-", now.bodyKbPerRequest(), "new");
+                continue;
+            }
+            double throughputWas = was.path("throughput").asDouble();
+            double p99Was = was.path("p99Ms").asDouble();
+            double kbWas = was.path("bodyKbPerRequest").asDouble();
+            out.printf("%-26s %10.1f %10.1f %8s %10.1f %10.1f %8s %8.2f%% %8.2f %8.2f %8s%n",
+                    now.endpoint(), throughputWas, now.throughput(), change(throughputWas, now.throughput()),
+                    p99Was, now.p99Ms(), change(p99Was, now.p99Ms()), now.errorRate() * 100,
+                    kbWas, now.bodyKbPerRequest(), change(kbWas, now.bodyKbPerRequest()));
+        }
+        out.println("Rows read by PostgreSQL per table (was -> now):");
+        JsonNode rowsWas = baseline.path("databaseRowsRead");
+        Map<String, Long> tables = new TreeMap<>(rowsRead);
+        rowsWas.fieldNames().forEachRemaining(table -> tables.putIfAbsent(table, 0L));
+        for (String table : tables.keySet()) {
+            long was = rowsWas.path(table).asLong();
+            long now = rowsRead.getOrDefault(table, 0L);
+            out.printf("  %-24s %12d -> %12d %8s%n", table, was, now, change(was, now));
+        }
+        out.flush();
+        return text.toString();
+    }
+
+    private static String change(double was, double now) {
+        if (was == 0) {
+            return "-";
+        }
+        return String.format("%+.1f%%", (now - was) / was * 100);
+    }
+
+    private static EndpointResult result(String endpoint, Histogram latency, long errors, long notModified,
+                                         long bodyBytes, double seconds) {
+        long requests = latency.getTotalCount();
+        long attempts = requests + errors;
+        return new EndpointResult(endpoint, requests, errors,
+                seconds > 0 ? requests / seconds : 0,
+                attempts > 0 ? errors / (double) attempts : 0,
+                latency.getMean() / 1000.0,
+                latency.getValueAtPercentile(50) / 1000.0,
+                latency.getValueAtPercentile(90) / 1000.0,
+                latency.getValueAtPercentile(99) / 1000.0,
+                latency.getValueAtPercentile(99.9) / 1000.0,
+                latency.getMaxValue() / 1000.0,
+                notModified,
+                bodyBytes,
+                requests > 0 ? bodyBytes / 1024.0 / requests : 0);
+    }
+}
@@ -0,0 +1,233 @@
+package com.goldcosmetics.loadtest;
+
+import com.goldcosmetics.GoldCosmeticsApplication;
+import com.goldcosmetics.model.Role;
+import com.goldcosmetics.model.User;
+import com.goldcosmetics.service.UserService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Full-stack load test: real Tomcat, Spring Security, Thymeleaf and JPA, with
+ * a throwaway embedded PostgreSQL instead of the shop database.
+ *
+ * 1. Start embedded PostgreSQL and the app on a random port (app output goes to app.log)
+ * 2. Seed one customer, employee and admin account per simulated user
+ * 3. Run the closed-model visitors: warm-up, then the measured window
+ * 4. Write the report folder and, if asked, compare with a baseline report
+ *
+ * Run with: mvn -Ploadtest verify [-Dloadtest.users=200 -Dloadtest.baseline=.../report.json]
+ * scripts/virtual-thread-benchmark.sh and scripts/admin-api-polling-benchmark.sh
+ * are two such runs each, with different settings.
+ * Everything runs locally - no network access needed once Maven has the jars.
+ */
+public final class LoadTestRunner {
+
+    private static final DateTimeFormatter FOLDER_TIME =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneId.systemDefault());
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        Instant startedAt = Instant.now();
+        String commit = currentCommit();
+        String label = config.label().isBlank() ? commit : config.label();
+        Path folder = config.outputDir().resolve(FOLDER_TIME.format(startedAt) + "-" + label);
+        Files.createDirectories(folder);
+        Path workDir = Files.createTempDirectory("gold-cosmetics-loadtest");
+
+        PrintStream console = System.out;
+        console.println("========================================");
+        console.println("🏋️ GOLD COSMETICS LOAD TEST: " + label);
+        console.println("========================================");
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             PrintStream appLog = new PrintStream(new FileOutputStream(folder.resolve("app.log").toFile()),
+                     true, StandardCharsets.UTF_8)) {
+
+            console.println("🐘 Embedded PostgreSQL on port " + postgres.getPort());
+            System.setOut(appLog);
+            // As command-line arguments: they win over application.properties
+            // (.properties(...) would only set defaults that the file overrides)
+            String[] appArgs = appProperties(postgres, workDir, config).entrySet().stream()
+                    .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                    .toArray(String[]::new);
+            ConfigurableApplicationContext app = new SpringApplicationBuilder(GoldCosmeticsApplication.class)
+                    .run(appArgs);
+            try {
+                int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+                console.println("🚀 App started on port " + port);
+
+                long seedStart = System.nanoTime();
+                seedAccounts(app.getBean(UserService.class), config.users());
+                console.printf("🌱 Seeded %d accounts in %.1f s%n", config.users() * 3,
+                        (System.nanoTime() - seedStart) / 1e9);
+
+                DatabaseReads reads = new DatabaseReads(postgres.getPostgresDatabase());
+                LatencyRecorder recorder = drive("http://localhost:" + port, config, reads, console);
+
+                LoadTestReport report = new LoadTestReport(config, commit, startedAt, recorder, reads.rowsRead());
+                report.write(folder);
+                console.println();
+                console.print(report.table());
+                if (config.baseline() != null) {
+                    String comparison = report.compareWith(config.baseline());
+                    Files.writeString(folder.resolve("comparison.txt"), comparison, StandardCharsets.UTF_8);
+                    console.println();
+                    console.print(comparison);
+                }
+                console.println("📁 Report: " + folder.toAbsolutePath());
+            } finally {
+                app.close();
+                System.setOut(console);
+            }
+        }
+    }
+
+    private static Map<String, Object> appProperties(EmbeddedPostgres postgres, Path workDir, LoadTestConfig config)
+            throws IOException {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", 0);
+        if (!config.appProfiles().isBlank()) {
+            // e.g. virtual-threads (needs a Java 21 run: -Pvirtual-threads,loadtest)
+            properties.put("spring.profiles.active", config.appProfiles());
+        }
+        properties.put("spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres"));
+        properties.put("spring.datasource.username", "postgres");
+        properties.put("spring.datasource.password", "");
+        // Flyway builds the tables; Hibernate checks them, as in production
+        properties.put("spring.jpa.hibernate.ddl-auto", "validate");
+        properties.put("spring.jpa.show-sql", false);
+        properties.put("spring.jpa.properties.hibernate.format_sql", false);
+        properties.put("spring.thymeleaf.cache", true);
+        properties.put("logging.level.com.goldcosmetics", "INFO");
+        properties.put("logging.level.org.hibernate.SQL", "WARN");
+        properties.put("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", "WARN");
+        // Journals go to the throwaway folder, not the real data/ directory
+        properties.put("goldcosmetics.orders.journal.path", workDir.resolve("orders.journal").toString());
+        properties.put("goldcosmetics.user-events.journal.dir", workDir.resolve("user-events").toString());
+        // Welcome emails go to the fake mail server from the test sources, on free ports
+        int smtpPort = freePort();
+        int smsPort = freePort();
+        properties.put("goldcosmetics.notifications.fake-sink.enabled", true);
+        properties.put("goldcosmetics.notifications.fake-sink.smtp-port", smtpPort);
+        properties.put("goldcosmetics.notifications.fake-sink.sms-port", smsPort);
+        properties.put("goldcosmetics.notifications.email.host", "localhost");
+        properties.put("goldcosmetics.notifications.email.port", smtpPort);
+        properties.put("goldcosmetics.notifications.sms.url", "http://localhost:" + smsPort + "/sms");
+        return properties;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /** One account per role per visitor, hashed in parallel (BCrypt is slow on purpose) */
+    private static void seedAccounts(UserService userService, int users) throws Exception {
+        ExecutorService seeders = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            List<Future<User>> accounts = new ArrayList<>();
+            for (int id = 0; id < users; id++) {
+                for (Role role : Role.values()) {
+                    String username = VirtualUser.username(role.name(), id);
+                    String shop = id % 2 == 0 ? "Naivasha" : "Karagita";
+                    accounts.add(seeders.submit(() -> userService.registerUser(User.builder()
+                            .username(username)
+                            .email(username + "@loadtest.local")
+                            .password(VirtualUser.PASSWORD)
+                            .fullName("Load Test " + username)
+                            .phone("0700000000")
+                            .role(role)
+                            .shopLocation(role == Role.CUSTOMER ? null : shop)
+                            .deliveryAddress(role == Role.CUSTOMER ? shop : null)
+                            .isActive(true)
+                            .build())));
+                }
+            }
+            for (Future<User> account : accounts) {
+                account.get();
+            }
+        } finally {
+            seeders.shutdown();
+        }
+    }
+
+    private static LatencyRecorder drive(String baseUrl, LoadTestConfig config, DatabaseReads reads,
+                                         PrintStream console) throws InterruptedException {
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        LatencyRecorder recorder = new LatencyRecorder();
+        long deadline = System.nanoTime() + config.warmup().plus(config.duration()).toNanos();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService visitors = Executors.newFixedThreadPool(config.users(), runnable -> {
+            Thread thread = new Thread(runnable, "visitor-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int id = 0; id < config.users(); id++) {
+            visitors.submit(new VirtualUser(id, baseUrl, http, config, recorder, deadline));
+        }
+
+        console.println("🔥 Warming up for " + config.warmup().toSeconds() + " s...");
+        Thread.sleep(config.warmup().toMillis());
+        reads.start();
+        recorder.start();
+        console.println("⏱️  Measuring for " + config.duration().toSeconds() + " s...");
+        Thread.sleep(config.duration().toMillis());
+        recorder.stop();
+
+        visitors.shutdownNow();
+        visitors.awaitTermination(30, TimeUnit.SECONDS);
+        reads.stop();
+        return recorder;
+    }
+
+    private static String currentCommit() {
+        try {
+            String commit = run("git", "rev-parse", "--short", "HEAD");
+            return run("git", "status", "--porcelain").isEmpty() ? commit : commit + "-dirty";
+        } catch (IOException | InterruptedException e) {
+            return "unknown";
+        }
+    }
+
+    private static String run(String... command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        if (process.waitFor() != 0) {
+            throw new IOException(String.join(" ", command) + " failed: " + output);
+        }
+        return output;
+    }
+}
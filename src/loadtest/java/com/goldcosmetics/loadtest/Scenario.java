@@ -0,0 +1,23 @@
+package com.goldcosmetics.loadtest;
+
+/**
+ * What a simulated visitor does on one trip to the site
+ */
+enum Scenario {
+
+    /** Public pages only: GET / then GET /about */
+    BROWSE,
+
+    /** GET /login, POST /login with CSRF token, then GET /dashboard as that role */
+    LOGIN,
+
+    /** GET /register, POST /register a brand-new customer */
+    REGISTER,
+
+    /**
+     * An admin screen refreshing: GET /admin/api/users, then the first few
+     * users one by one (loadtest.poll-users), with If-None-Match unless
+     * loadtest.conditional-polling=false. Logs in as admin first if needed.
+     */
+    ADMIN_POLL
+}
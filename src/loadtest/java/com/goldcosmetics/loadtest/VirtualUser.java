@@ -0,0 +1,247 @@
+package com.goldcosmetics.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * One simulated visitor in a closed model: pick a scenario, run it, think,
+ * repeat until the deadline. Each visitor keeps its own session cookie and
+ * logs in with its own seeded accounts (the app allows one session per user).
+ */
+final class VirtualUser implements Runnable {
+
+    static final String PASSWORD = "loadtest123";
+
+    private static final Pattern CSRF = Pattern.compile("name=\"_csrf\"[^>]*value=\"([^\"]+)\"");
+    private static final Pattern SESSION = Pattern.compile("JSESSIONID=([^;]+)");
+    private static final Pattern USER_ID = Pattern.compile("\"id\":(\\d+)");
+
+    private final int id;
+    private final String baseUrl;
+    private final HttpClient http;
+    private final LoadTestConfig config;
+    private final LatencyRecorder recorder;
+    private final long deadlineNanos;
+    private String session;
+    private String loggedInAs;
+    private int registrations;
+    /** What the polling admin screen shows: the list, then these users */
+    private List<String> polledUsers;
+    private final Map<String, String> etags = new HashMap<>();
+
+    VirtualUser(int id, String baseUrl, HttpClient http, LoadTestConfig config,
+                LatencyRecorder recorder, long deadlineNanos) {
+        this.id = id;
+        this.baseUrl = baseUrl;
+        this.http = http;
+        this.config = config;
+        this.recorder = recorder;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /** Seeded account this visitor logs in with for the given role */
+    static String username(String role, int id) {
+        return "lt-" + role.toLowerCase() + "-" + id;
+    }
+
+    @Override
+    public void run() {
+        // Spread the first requests out instead of all users hitting at once
+        think();
+        while (System.nanoTime() < deadlineNanos && !Thread.currentThread().isInterrupted()) {
+            try {
+                switch (config.scenarioMix().next()) {
+                    case BROWSE -> browse();
+                    case LOGIN -> login(config.loginRoles().next());
+                    case REGISTER -> register();
+                    case ADMIN_POLL -> adminPoll();
+                }
+            } catch (StepFailed e) {
+                // Already counted against its endpoint - the visitor gives up on this trip
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            think();
+        }
+    }
+
+    private void browse() throws InterruptedException {
+        get("/", "GET /");
+        get("/about", "GET /about");
+    }
+
+    private void login(String role) throws InterruptedException {
+        session = null;
+        loggedInAs = null;
+        String csrf = csrfToken(get("/login", "GET /login"), "GET /login");
+        Map<String, String> form = new LinkedHashMap<>();
+        form.put("_csrf", csrf);
+        form.put("username", username(role, id));
+        form.put("password", PASSWORD);
+        HttpResponse<String> response = post("/login", "POST /login", form, 302);
+        if (!response.headers().firstValue("Location").orElse("").endsWith("/dashboard")) {
+            fail("POST /login");
+        }
+        get("/dashboard", "GET /dashboard (" + role + ")");
+        loggedInAs = role;
+    }
+
+    private void adminPoll() throws InterruptedException {
+        if (!"ADMIN".equals(loggedInAs)) {
+            login("ADMIN");
+        }
+        HttpResponse<String> list = poll("/admin/api/users", "GET /admin/api/users");
+        if (polledUsers == null && list.statusCode() == 200) {
+            polledUsers = new ArrayList<>();
+            Matcher matcher = USER_ID.matcher(list.body());
+            while (polledUsers.size() < config.pollUsers() && matcher.find()) {
+                polledUsers.add("/admin/api/users/" + matcher.group(1));
+            }
+        }
+        if (polledUsers != null) {
+            for (String path : polledUsers) {
+                poll(path, "GET /admin/api/users/{id}");
+            }
+        }
+    }
+
+    private void register() throws InterruptedException {
+        session = null;
+        loggedInAs = null;
+        String csrf = csrfToken(get("/register", "GET /register"), "GET /register");
+        String username = "lt-new-" + id + "-" + (++registrations) + "-" + System.nanoTime() % 100_000;
+        Map<String, String> form = new LinkedHashMap<>();
+        form.put("_csrf", csrf);
+        form.put("fullName", "Load Test " + id);
+        form.put("username", username);
+        form.put("email", username + "@loadtest.local");
+        form.put("password", PASSWORD);
+        form.put("phone", "0700000000");
+        form.put("deliveryAddress", "Naivasha");
+        HttpResponse<String> response = post("/register", "POST /register", form, 302);
+        if (!response.headers().firstValue("Location").orElse("").contains("/login?success")) {
+            fail("POST /register");
+        }
+    }
+
+    private HttpResponse<String> get(String path, String endpoint) throws InterruptedException {
+        return send(endpoint, request(path).GET().build(), 200);
+    }
+
+    /** GET that sends back the last ETag (if conditional polling is on) and keeps the new one */
+    private HttpResponse<String> poll(String path, String endpoint) throws InterruptedException {
+        HttpRequest.Builder request = request(path).header("Accept", "application/json").GET();
+        String etag = etags.get(path);
+        if (config.conditionalPolling() && etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        HttpResponse<String> response = send(endpoint, request.build(), 200, 304);
+        response.headers().firstValue("ETag").ifPresent(tag -> etags.put(path, tag));
+        return response;
+    }
+
+    private HttpResponse<String> post(String path, String endpoint, Map<String, String> form,
+                                      int expectedStatus) throws InterruptedException {
+        String body = form.entrySet().stream()
+                .map(e -> URLEncoder.encode(e.getKey(), StandardCharsets.UTF_8) + "="
+                        + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+        return send(endpoint, request(path)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), expectedStatus);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30));
+        if (session != null) {
+            builder.header("Cookie", "JSESSIONID=" + session);
+        }
+        return builder;
+    }
+
+    private HttpResponse<String> send(String endpoint, HttpRequest request, int... expectedStatuses)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            fail(endpoint);
+            return null;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (!isExpected(response.statusCode(), expectedStatuses)) {
+            fail(endpoint);
+        }
+        recorder.success(endpoint, elapsed, response.body().getBytes(StandardCharsets.UTF_8).length,
+                response.statusCode() == 304);
+        for (String cookie : response.headers().allValues("Set-Cookie")) {
+            Matcher matcher = SESSION.matcher(cookie);
+            if (matcher.find()) {
+                session = matcher.group(1);
+            }
+        }
+        return response;
+    }
+
+    private static boolean isExpected(int status, int... expectedStatuses) {
+        for (int expected : expectedStatuses) {
+            if (status == expected) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String csrfToken(HttpResponse<String> page, String endpoint) {
+        Matcher matcher = CSRF.matcher(page.body());
+        if (!matcher.find()) {
+            fail(endpoint);
+        }
+        return matcher.group(1);
+    }
+
+    private void fail(String endpoint) {
+        recorder.error(endpoint);
+        throw new StepFailed();
+    }
+
+    /** Exponential think time around the configured mean, like independent visitors */
+    private void think() {
+        long meanMs = config.meanThinkTime().toMillis();
+        if (meanMs <= 0) {
+            return;
+        }
+        double sample = -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanMs;
+        long sleepMs = Math.min((long) sample, meanMs * 10);
+        try {
+            Thread.sleep(sleepMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class StepFailed extends RuntimeException {
+        StepFailed() {
+            super(null, null, false, false);
+        }
+    }
+}
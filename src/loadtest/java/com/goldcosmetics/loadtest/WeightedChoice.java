@@ -0,0 +1,63 @@
+package com.goldcosmetics.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Picks one of several options by weight, e.g. "browse:80,login:15,register:5"
+ */
+final class WeightedChoice<T> {
+
+    private final List<T> options = new ArrayList<>();
+    private final List<Integer> weights = new ArrayList<>();
+    private int totalWeight;
+
+    static <T> WeightedChoice<T> parse(String spec, Function<String, T> parser) {
+        WeightedChoice<T> choice = new WeightedChoice<>();
+        for (String part : spec.split(",")) {
+            String[] nameAndWeight = part.trim().split(":");
+            if (nameAndWeight.length != 2) {
+                throw new IllegalArgumentException("Expected name:weight but got '" + part + "' in " + spec);
+            }
+            int weight = Integer.parseInt(nameAndWeight[1].trim());
+            if (weight > 0) {
+                choice.options.add(parser.apply(nameAndWeight[0].trim()));
+                choice.weights.add(weight);
+                choice.totalWeight += weight;
+            }
+        }
+        if (choice.totalWeight == 0) {
+            throw new IllegalArgumentException("Nothing to choose from in " + spec);
+        }
+        return choice;
+    }
+
+    T next() {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (int i = 0; i < options.size(); i++) {
+            roll -= weights.get(i);
+            if (roll < 0) {
+                return options.get(i);
+            }
+        }
+        return options.get(options.size() - 1);
+    }
+
+    List<T> options() {
+        return options;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < options.size(); i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(options.get(i).toString().toLowerCase()).append(':').append(weights.get(i));
+        }
+        return text.toString();
+    }
+}
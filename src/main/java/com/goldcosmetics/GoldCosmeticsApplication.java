@@ -8,6 +8,7 @@ package com.goldcosmetics;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableAsync;
 
 // =======================================================================
 // MAIN APPLICATION CLASS
@@ -32,6 +33,9 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 // This annotation tells Spring Boot: "Hey, this is a Spring Boot application!"
 // It automatically configures a lot of things for us (saves us hours of setup!)
 @SpringBootApplication
+// Lets methods marked @Async run in the background (on virtual threads with
+// the "virtual-threads" profile)
+@EnableAsync
 public class GoldCosmeticsApplication {
 
     /**
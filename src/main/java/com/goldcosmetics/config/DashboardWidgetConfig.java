@@ -0,0 +1,198 @@
+package com.goldcosmetics.config;
+
+import com.goldcosmetics.dto.DashboardViewer;
+import com.goldcosmetics.dto.RollupPoint;
+import com.goldcosmetics.dto.UserView;
+import com.goldcosmetics.model.CustomerOrder;
+import com.goldcosmetics.model.NotificationStatus;
+import com.goldcosmetics.model.Role;
+import com.goldcosmetics.model.RollupMetric;
+import com.goldcosmetics.model.RollupResolution;
+import com.goldcosmetics.model.User;
+import com.goldcosmetics.repository.OrderRepository;
+import com.goldcosmetics.repository.OutboxNotificationRepository;
+import com.goldcosmetics.service.ActivityRollupService;
+import com.goldcosmetics.service.DashboardWidget;
+import com.goldcosmetics.service.DashboardWidget.Scope;
+import com.goldcosmetics.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The widgets that can appear on a dashboard.
+ *
+ * Which role sees which widget is set with goldcosmetics.dashboard.layout.*
+ * in application.properties. To add a widget, add a bean here and put its
+ * name in a layout.
+ */
+@Configuration
+public class DashboardWidgetConfig {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ActivityRollupService activityRollupService;
+
+    @Autowired
+    private OutboxNotificationRepository outboxNotificationRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    // Same zone the activity rollups use for "today"
+    @Value("${goldcosmetics.analytics.zone:}")
+    private String zoneName;
+
+    /**
+     * User counts by role - read from the in-memory counters, so it is cheap
+     */
+    @Bean
+    public DashboardWidget userTotalsWidget() {
+        return DashboardWidget.builder()
+                .name("userTotals")
+                .scope(Scope.ROLE)
+                .cacheTtl(Duration.ofSeconds(2))
+                .loader(viewer -> {
+                    Map<String, Long> totals = new LinkedHashMap<>();
+                    totals.put("all", userService.getTotalUsers());
+                    totals.put("customer", userService.getTotalCustomers());
+                    totals.put("employee", userService.getTotalEmployees());
+                    totals.put("admin", userService.getTotalAdmins());
+                    return totals;
+                })
+                .build();
+    }
+
+    /**
+     * Registrations and logins since midnight - all shops for admins, their own shop for employees
+     */
+    @Bean
+    public DashboardWidget todayActivityWidget() {
+        return DashboardWidget.builder()
+                .name("todayActivity")
+                .scope(Scope.SHOP)
+                .loader(viewer -> {
+                    String shop = viewer.getRole() == Role.ADMIN ? null : shopOrNone(viewer);
+                    LocalDateTime from = LocalDate.now(zone()).atStartOfDay();
+                    LocalDateTime to = from.plusDays(1);
+
+                    Map<String, Long> today = new LinkedHashMap<>();
+                    today.put("registrations", sum(activityRollupService.query(
+                            RollupMetric.REGISTRATIONS, RollupResolution.DAY, from, to, shop, null)));
+                    today.put("logins", sum(activityRollupService.query(
+                            RollupMetric.LOGINS, RollupResolution.DAY, from, to, shop, null)));
+                    return today;
+                })
+                .build();
+    }
+
+    /**
+     * Emails and SMS still waiting to go out, and ones that gave up
+     */
+    @Bean
+    public DashboardWidget notificationQueueWidget() {
+        return DashboardWidget.builder()
+                .name("notificationQueue")
+                .scope(Scope.ROLE)
+                .loader(viewer -> {
+                    Map<String, Long> queue = new LinkedHashMap<>();
+                    queue.put("pending", outboxNotificationRepository.countByStatus(NotificationStatus.PENDING));
+                    queue.put("sending", outboxNotificationRepository.countByStatus(NotificationStatus.IN_FLIGHT));
+                    queue.put("failed", outboxNotificationRepository.countByStatus(NotificationStatus.FAILED));
+                    return queue;
+                })
+                .build();
+    }
+
+    /**
+     * Everyone working at the viewer's shop
+     */
+    @Bean
+    public DashboardWidget shopStaffWidget() {
+        return DashboardWidget.builder()
+                .name("shopStaff")
+                .scope(Scope.SHOP)
+                .cacheTtl(Duration.ofSeconds(30))
+                .loader(viewer -> {
+                    List<Map<String, Object>> staff = new ArrayList<>();
+                    if (viewer.getShopLocation() == null) {
+                        return staff;
+                    }
+                    for (User employee : userService.getEmployeesByShop(viewer.getShopLocation())) {
+                        Map<String, Object> row = new LinkedHashMap<>();
+                        row.put("username", employee.getUsername());
+                        row.put("fullName", employee.getFullName());
+                        row.put("active", employee.getIsActive());
+                        row.put("lastLoginAt", employee.getLastLoginAt());
+                        staff.add(row);
+                    }
+                    return staff;
+                })
+                .build();
+    }
+
+    /**
+     * The customer's own details
+     */
+    @Bean
+    public DashboardWidget customerProfileWidget() {
+        return DashboardWidget.builder()
+                .name("customerProfile")
+                .scope(Scope.USER)
+                .cacheTtl(Duration.ofSeconds(30))
+                .loader(viewer -> userService.findByUsername(viewer.getUsername()).map(UserView::from).orElse(null))
+                .build();
+    }
+
+    /**
+     * The customer's last few orders
+     */
+    @Bean
+    public DashboardWidget recentOrdersWidget() {
+        return DashboardWidget.builder()
+                .name("recentOrders")
+                .scope(Scope.USER)
+                .loader(viewer -> {
+                    List<Map<String, Object>> orders = new ArrayList<>();
+                    for (CustomerOrder order : orderRepository.findTop5ByCustomerUsernameOrderByPlacedAtDesc(viewer.getUsername())) {
+                        Map<String, Object> row = new LinkedHashMap<>();
+                        row.put("orderReference", order.getOrderReference());
+                        row.put("status", order.getStatus());
+                        row.put("paymentStatus", order.getPaymentStatus());
+                        row.put("totalAmount", order.getTotalAmount());
+                        row.put("placedAt", order.getPlacedAt());
+                        orders.add(row);
+                    }
+                    return orders;
+                })
+                .build();
+    }
+
+    private ZoneId zone() {
+        return zoneName.isBlank() ? ZoneId.systemDefault() : ZoneId.of(zoneName);
+    }
+
+    // "-" asks the rollups for users without a shop instead of all shops
+    private static String shopOrNone(DashboardViewer viewer) {
+        return viewer.getShopLocation() != null ? viewer.getShopLocation() : "-";
+    }
+
+    private static long sum(List<RollupPoint> points) {
+        long total = 0;
+        for (RollupPoint point : points) {
+            total += point.getCount();
+        }
+        return total;
+    }
+}
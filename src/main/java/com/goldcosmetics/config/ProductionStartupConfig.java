@@ -0,0 +1,70 @@
+package com.goldcosmetics.config;
+
+import com.goldcosmetics.service.ActivityRollupService;
+import com.goldcosmetics.service.CustomerSearchService;
+import com.goldcosmetics.service.NotificationDispatcher;
+import com.goldcosmetics.service.OrderIngestionService;
+import com.goldcosmetics.service.OrderJournal;
+import com.goldcosmetics.service.PaymentCallbackService;
+import com.goldcosmetics.service.UserCountersView;
+import com.goldcosmetics.service.UserEventJournal;
+import com.goldcosmetics.service.UserEventProjector;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+@Configuration
+@Profile("prod")  // Only used with the production profile
+public class ProductionStartupConfig {
+
+    // Set by application-cds-training.properties. A property, not a profile:
+    // the AOT build fixes which profiles are active when it is built.
+    private static final String CDS_TRAINING = "goldcosmetics.cds-training";
+
+    /**
+     * Production turns on lazy initialization, but these beans must start with
+     * the app: the migrations run first, then the journals left by a crash are
+     * replayed and the background workers start. The CDS training run starts
+     * none of them.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter eagerBackgroundServices(Environment environment) {
+        if (isCdsTraining(environment)) {
+            return (beanName, beanDefinition, beanType) -> false;
+        }
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                FlywayMigrationInitializer.class,
+                OrderJournal.class,
+                OrderIngestionService.class,
+                PaymentCallbackService.class,
+                UserEventJournal.class,
+                UserEventProjector.class,
+                UserCountersView.class,
+                ActivityRollupService.class,
+                CustomerSearchService.class,
+                NotificationDispatcher.class);
+    }
+
+    /**
+     * Run the database migrations on startup - except in the CDS training run,
+     * which has no database
+     */
+    @Bean
+    FlywayMigrationStrategy flywayMigrationStrategy(Environment environment) {
+        return flyway -> {
+            if (isCdsTraining(environment)) {
+                System.out.println("⏭️ CDS training run - skipping database migrations");
+                return;
+            }
+            flyway.migrate();
+        };
+    }
+
+    private static boolean isCdsTraining(Environment environment) {
+        return environment.getProperty(CDS_TRAINING, Boolean.class, false);
+    }
+}
@@ -32,7 +32,9 @@ public class SecurityConfig {
                     "/css/**",        // CSS files
                     "/js/**",         // JavaScript files
                     "/images/**",     // Images
-                    "/error"          // Error pages
+                    "/error",         // Error pages
+                    "/csrf",          // CSRF token for tills and API scripts
+                    "/payments/callback/**"  // Payment gateway webhooks (checked by signature)
                 ).permitAll()
                 
                 // ADMIN-ONLY PAGES
@@ -73,6 +75,11 @@ public class SecurityConfig {
                 .tokenValiditySeconds(86400 * 7)  // Valid for 7 days
             )
             
+            // Webhooks come from the payment gateway, not a browser form
+            .csrf(csrf -> csrf
+                .ignoringRequestMatchers("/payments/callback/**")
+            )
+            
             .sessionManagement(session -> session
                 .maximumSessions(1)            // Only one session per user
                 .expiredUrl("/login?expired")  // Where to go if session expires
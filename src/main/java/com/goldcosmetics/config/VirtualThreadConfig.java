@@ -0,0 +1,74 @@
+package com.goldcosmetics.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Extra safety for the "virtual-threads" profile (needs Java 21+).
+ *
+ * spring.threads.virtual.enabled (in application-virtual-threads.properties)
+ * moves Tomcat requests and @Async tasks onto virtual threads. This class
+ * wraps two beans so that does not backfire:
+ * - the DataSource, so thousands of requests queue for a slot instead of
+ *   all hitting the connection pool at once
+ * - the PasswordEncoder, so BCrypt runs on a bounded platform-thread pool
+ */
+@Configuration
+@Profile("virtual-threads")  // Only used with the virtual-threads profile
+public class VirtualThreadConfig {
+
+    @Bean
+    static BeanPostProcessor virtualThreadSafeguards(Environment environment) {
+        return new Safeguards(environment);
+    }
+
+    private static class Safeguards implements BeanPostProcessor, DisposableBean {
+
+        private final Environment environment;
+        private final List<OffloadedPasswordEncoder> encoders = new ArrayList<>();
+
+        Safeguards(Environment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof AdmissionControlledDataSource)) {
+                // 0 = one slot per pooled connection
+                int permits = environment.getProperty("goldcosmetics.db.admission.permits", Integer.class, 0);
+                if (permits <= 0) {
+                    permits = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+                }
+                long timeoutMs = environment.getProperty("goldcosmetics.db.admission.timeout-ms", Long.class, 30_000L);
+                System.out.println("🚦 Database admission limit: " + permits + " connections");
+                return new AdmissionControlledDataSource(dataSource, permits, timeoutMs);
+            }
+            if (bean instanceof PasswordEncoder encoder && !(bean instanceof OffloadedPasswordEncoder)) {
+                // 0 = one hashing thread per CPU
+                int threads = environment.getProperty("goldcosmetics.security.hashing-threads", Integer.class, 0);
+                if (threads <= 0) {
+                    threads = Runtime.getRuntime().availableProcessors();
+                }
+                System.out.println("🔐 Password hashing pool: " + threads + " platform threads");
+                OffloadedPasswordEncoder offloaded = new OffloadedPasswordEncoder(encoder, threads);
+                encoders.add(offloaded);
+                return offloaded;
+            }
+            return bean;
+        }
+
+        @Override
+        public void destroy() {
+            encoders.forEach(OffloadedPasswordEncoder::shutdown);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.goldcosmetics.controller;
+
+import com.goldcosmetics.dto.RoleChangeRequest;
+import com.goldcosmetics.dto.UserUpdateRequest;
+import com.goldcosmetics.dto.UserView;
+import com.goldcosmetics.model.Role;
+import com.goldcosmetics.model.User;
+import com.goldcosmetics.service.UserListStreamer;
+import com.goldcosmetics.service.UserService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JSON API for managing users (admins only - see SecurityConfig)
+ *
+ * Every user has an ETag made from its id and version:
+ * - GET with If-None-Match answers 304 after reading only the version column
+ * - changes need If-Match (PUT) or accept it (POST), and answer 412 if
+ *   someone else changed the user first - no lost updates
+ * - the list has its own ETag and is streamed row by row
+ */
+@RestController
+@RequestMapping("/admin/api/users")
+public class AdminUserApiController {
+
+    private static final Pattern USER_TAG = Pattern.compile("^(?:W/)?\"(\\d+)\\.(\\d+)\"$");
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserListStreamer userListStreamer;
+
+    /**
+     * Example: GET /admin/api/users?role=EMPLOYEE&active=true
+     */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> list(@RequestParam(value = "role", required = false) Role role,
+                                                      @RequestParam(value = "active", required = false) Boolean active,
+                                                      WebRequest request) {
+        String tag = userListStreamer.listTag(role, active);
+        if (request.checkNotModified(tag)) {
+            return null;  // 304 - Spring has already set the status and ETag
+        }
+        return ResponseEntity.ok()
+                .eTag(tag)
+                .cacheControl(CacheControl.noCache())  // Always ask again, but with If-None-Match
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> userListStreamer.writeList(role, active, out));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<UserView> get(@PathVariable("id") Long id, WebRequest request) {
+        Optional<Long> version = userService.findVersion(id);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(tag(id, version.get()))) {
+            return null;  // 304 without loading the user
+        }
+        return userService.findById(id)
+                .map(user -> ResponseEntity.ok()
+                        .eTag(tag(user))
+                        .cacheControl(CacheControl.noCache())
+                        .body(UserView.from(user)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Update profile fields. If-Match is required so a stale form can't
+     * overwrite someone else's change. Fields that break the limits in
+     * UserUpdateRequest get a 400.
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<?> update(@PathVariable("id") Long id,
+                                    @Valid @RequestBody UserUpdateRequest update,
+                                    @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        if (ifMatch == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED)
+                    .body(Map.of("error", "Send If-Match with the ETag you last read"));
+        }
+        User changes = User.builder()
+                .fullName(update.getFullName())
+                .phone(update.getPhone())
+                .deliveryAddress(update.getDeliveryAddress())
+                .build();
+        return apply(id, ifMatch, expected -> userService.updateUser(id, changes, expected));
+    }
+
+    @PutMapping("/{id}/role")
+    public ResponseEntity<?> changeRole(@PathVariable("id") Long id,
+                                        @RequestBody RoleChangeRequest change,
+                                        @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        if (change.getRole() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "role is required"));
+        }
+        return apply(id, ifMatch, expected -> userService.changeUserRole(id, change.getRole(), expected));
+    }
+
+    @PostMapping("/{id}/activate")
+    public ResponseEntity<?> activate(@PathVariable("id") Long id,
+                                      @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        return apply(id, ifMatch, expected -> userService.setActive(id, true, expected));
+    }
+
+    @PostMapping("/{id}/deactivate")
+    public ResponseEntity<?> deactivate(@PathVariable("id") Long id,
+                                        @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        return apply(id, ifMatch, expected -> userService.setActive(id, false, expected));
+    }
+
+    private interface VersionedChange {
+        User apply(Long expectedVersion);
+    }
+
+    private ResponseEntity<?> apply(Long id, String ifMatch, VersionedChange change) {
+        Long expected;
+        try {
+            expected = expectedVersion(id, ifMatch);
+        } catch (IllegalArgumentException e) {
+            return preconditionFailed(e.getMessage());
+        }
+        try {
+            User saved = change.apply(expected);
+            return ResponseEntity.ok().eTag(tag(saved)).body(UserView.from(saved));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (OptimisticLockingFailureException e) {
+            return preconditionFailed("User has changed - fetch it again and retry");
+        }
+    }
+
+    /**
+     * Version from an If-Match header; null = no header or "*" (any version)
+     *
+     * @throws IllegalArgumentException if the tag is not one of this user's
+     */
+    private static Long expectedVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Matcher matcher = USER_TAG.matcher(ifMatch.trim());
+        // If-Match uses strong comparison, so a weak tag never matches
+        if (!matcher.matches() || ifMatch.trim().startsWith("W/") || !matcher.group(1).equals(id.toString())) {
+            throw new IllegalArgumentException("If-Match does not match this user");
+        }
+        return Long.valueOf(matcher.group(2));
+    }
+
+    private static ResponseEntity<?> preconditionFailed(String message) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(Map.of("error", message));
+    }
+
+    private static String tag(User user) {
+        return tag(user.getId(), user.getVersion());
+    }
+
+    private static String tag(Long id, Long version) {
+        return "\"" + id + "." + version + "\"";
+    }
+}
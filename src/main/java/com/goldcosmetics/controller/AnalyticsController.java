@@ -0,0 +1,42 @@
+package com.goldcosmetics.controller;
+
+import com.goldcosmetics.model.Role;
+import com.goldcosmetics.model.RollupMetric;
+import com.goldcosmetics.model.RollupResolution;
+import com.goldcosmetics.service.ActivityRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@RestController
+public class AnalyticsController {
+
+    @Autowired
+    private ActivityRollupService activityRollupService;
+
+    /**
+     * Chart data for user activity
+     *
+     * Example: /admin/analytics/activity?metric=REGISTRATIONS&resolution=DAY
+     *          &from=2026-01-01T00:00&to=2027-01-01T00:00&shop=Naivasha
+     */
+    @GetMapping("/admin/analytics/activity")
+    public ResponseEntity<?> activity(
+            @RequestParam("metric") RollupMetric metric,
+            @RequestParam("resolution") RollupResolution resolution,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "shop", required = false) String shopLocation,
+            @RequestParam(value = "role", required = false) Role role) {
+        try {
+            return ResponseEntity.ok(activityRollupService.query(metric, resolution, from, to, shopLocation, role));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.goldcosmetics.controller;
+
+import com.goldcosmetics.dto.CustomerMatch;
+import com.goldcosmetics.service.CustomerSearchService;
+import com.goldcosmetics.service.UserShopCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import java.util.List;
+
+@RestController
+public class CustomerSearchController {
+
+    @Autowired
+    private CustomerSearchService customerSearchService;
+
+    @Autowired
+    private UserShopCache userShopCache;
+
+    /**
+     * Type-ahead customer lookup for the till
+     *
+     * Example: /employee/customers/search?q=0712&limit=10
+     */
+    @GetMapping("/employee/customers/search")
+    public List<CustomerMatch> search(@RequestParam("q") String query,
+                                      @RequestParam(value = "limit", defaultValue = "10") int limit,
+                                      Authentication authentication) {
+
+        // Runs on every keystroke - the shop comes from memory, not the users table
+        String shopLocation = userShopCache.getShop(authentication.getName());
+
+        return customerSearchService.search(query, shopLocation, limit);
+    }
+}
@@ -1,53 +1,86 @@
 package com.goldcosmetics.controller;
 
+import com.goldcosmetics.dto.DashboardView;
+import com.goldcosmetics.dto.WidgetStats;
+import com.goldcosmetics.model.Role;
+import com.goldcosmetics.service.DashboardComposer;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
-import java.util.Collection;
+import org.springframework.web.bind.annotation.ResponseBody;
+import java.util.List;
 
 @Controller
 public class DashboardController {
 
+    @Autowired
+    private DashboardComposer dashboardComposer;
+
     @GetMapping("/dashboard")
-    public String dashboard(Authentication authentication, Model model) {
-        
-        // Get the user's username
+    public String dashboard(Authentication authentication, Model model, HttpServletResponse response) {
+
+        // Get the user's username and role
         String username = authentication.getName();
-        
-        // Get the user's authorities (roles)
-        Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
-        
+        Role role = roleOf(authentication);
+
         // Add user info to model
         model.addAttribute("username", username);
-        
-        // Check user's role and add appropriate info
-        for (GrantedAuthority authority : authorities) {
-            String role = authority.getAuthority();  // e.g., "ROLE_CUSTOMER"
-            
-            if (role.equals("ROLE_ADMIN")) {
+
+        switch (role) {
+            case ADMIN -> {
                 model.addAttribute("role", "Admin");
                 model.addAttribute("roleIcon", "👑");
                 model.addAttribute("welcomeMessage", "Welcome to the Admin Dashboard!");
-                // Later: redirect to /admin/dashboard
-                
-            } else if (role.equals("ROLE_EMPLOYEE")) {
+                model.addAttribute("liveStream", "/admin/dashboard/stream");
+            }
+            case EMPLOYEE -> {
                 model.addAttribute("role", "Employee");
                 model.addAttribute("roleIcon", "👔");
                 model.addAttribute("welcomeMessage", "Welcome to the Employee Dashboard!");
-                // Later: redirect to /employee/dashboard
-                
-            } else if (role.equals("ROLE_CUSTOMER")) {
+                model.addAttribute("liveStream", "/employee/dashboard/stream");
+            }
+            case CUSTOMER -> {
                 model.addAttribute("role", "Customer");
                 model.addAttribute("roleIcon", "🛍️");
                 model.addAttribute("welcomeMessage", "Welcome back! Start shopping!");
-                // Later: redirect to /customer/dashboard
             }
         }
-        
+
+        // Widgets load side by side - the page waits for the slowest one, not all of them in a row
+        DashboardView view = dashboardComposer.compose(username, role);
+        model.addAttribute("widgets", view.getWidgets());
+        response.setHeader("Server-Timing", view.toServerTiming());
+
         System.out.println("✅ User " + username + " accessed dashboard");
-        
+
         return "dashboard";
     }
-}
\ No newline at end of file
+
+    /**
+     * Per-widget numbers: cache hits, timeouts, failures and query times
+     */
+    @GetMapping("/admin/dashboard/widgets")
+    @ResponseBody
+    public List<WidgetStats> widgetStats() {
+        return dashboardComposer.getStats();
+    }
+
+    // "ROLE_EMPLOYEE" -> Role.EMPLOYEE (users only ever have one role)
+    private static Role roleOf(Authentication authentication) {
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            String name = authority.getAuthority();
+            if (name.startsWith("ROLE_")) {
+                try {
+                    return Role.valueOf(name.substring("ROLE_".length()));
+                } catch (IllegalArgumentException e) {
+                    // Not one of ours - keep looking
+                }
+            }
+        }
+        return Role.CUSTOMER;
+    }
+}
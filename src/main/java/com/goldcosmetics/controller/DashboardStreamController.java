@@ -0,0 +1,53 @@
+package com.goldcosmetics.controller;
+
+import com.goldcosmetics.model.Role;
+import com.goldcosmetics.service.DashboardLiveFeed;
+import com.goldcosmetics.service.UserShopCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import java.io.IOException;
+
+/**
+ * Live updates for the dashboard page (Server-Sent Events, read with EventSource in the browser)
+ */
+@RestController
+public class DashboardStreamController {
+
+    @Autowired
+    private DashboardLiveFeed dashboardLiveFeed;
+
+    @Autowired
+    private UserShopCache userShopCache;
+
+    @GetMapping(path = "/admin/dashboard/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public void adminStream(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        stream(Role.ADMIN, null, lastEventId, request, response);
+    }
+
+    // Employees only get the activity of their own shop
+    @GetMapping(path = "/employee/dashboard/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public void employeeStream(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId,
+                               Authentication authentication,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        stream(Role.EMPLOYEE, userShopCache.getShop(authentication.getName()), lastEventId, request, response);
+    }
+
+    private void stream(Role audience, String shopLocation, String lastEventId,
+                        HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try {
+            // Stop proxies (e.g. nginx) from holding messages back
+            response.setHeader("X-Accel-Buffering", "no");
+            dashboardLiveFeed.connect(audience, shopLocation, lastEventId, request, response);
+        } catch (IllegalStateException e) {
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+        }
+    }
+}
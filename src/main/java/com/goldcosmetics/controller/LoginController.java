@@ -1,7 +1,10 @@
 package com.goldcosmetics.controller;
 
+import org.springframework.security.web.csrf.CsrfToken;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import java.util.Map;
 
 @Controller
 public class LoginController {
@@ -10,4 +13,16 @@ public class LoginController {
     public String login() {
         return "login";
     }
-}
\ No newline at end of file
+
+    /**
+     * CSRF token for clients that are not browser forms (shop tills, scripts
+     * using the admin API). Ask again after logging in - login issues a new one.
+     */
+    @GetMapping("/csrf")
+    @ResponseBody
+    public Map<String, String> csrf(CsrfToken csrfToken) {
+        return Map.of("headerName", csrfToken.getHeaderName(),
+                      "parameterName", csrfToken.getParameterName(),
+                      "token", csrfToken.getToken());
+    }
+}
@@ -0,0 +1,44 @@
+package com.goldcosmetics.controller;
+
+import com.goldcosmetics.dto.OrderRequest;
+import com.goldcosmetics.service.OrderIngestionService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import java.util.Map;
+
+@RestController
+public class OrderController {
+
+    @Autowired
+    private OrderIngestionService orderIngestionService;
+
+    /**
+     * Place an order (checkout)
+     *
+     * Answers 202 Accepted as soon as the order is journaled -
+     * it is saved to the database in the background.
+     */
+    @PostMapping("/customer/orders")
+    public ResponseEntity<Map<String, Object>> placeOrder(@Valid @RequestBody OrderRequest request,
+                                                          Authentication authentication) {
+        try {
+            String reference = orderIngestionService.submit(request, authentication.getName());
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(Map.of("orderReference", reference, "status", "RECEIVED"));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+
+        } catch (RuntimeException e) {
+            System.out.println("❌ Order rejected: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+}
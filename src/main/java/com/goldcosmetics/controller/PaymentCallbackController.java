@@ -0,0 +1,39 @@
+package com.goldcosmetics.controller;
+
+import com.goldcosmetics.service.PaymentCallbackService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class PaymentCallbackController {
+
+    @Autowired
+    private PaymentCallbackService paymentCallbackService;
+
+    /**
+     * Paystack webhook
+     *
+     * Answers 200 only once the event is committed (saved in batches in the
+     * background). Duplicates get 200 so the gateway stops retrying; anything
+     * that could not be saved gets 503 so the gateway sends it again.
+     */
+    @PostMapping("/payments/callback/paystack")
+    public ResponseEntity<Void> paystackCallback(@RequestBody byte[] body,
+                                                 @RequestHeader(value = "x-paystack-signature", required = false)
+                                                 String signature) {
+
+        PaymentCallbackService.Outcome outcome = paymentCallbackService.receive(body, signature);
+
+        return switch (outcome) {
+            case ACCEPTED, DUPLICATE -> ResponseEntity.ok().build();
+            case INVALID_SIGNATURE -> ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            case MALFORMED -> ResponseEntity.badRequest().build();
+            case BUSY, NOT_SAVED -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        };
+    }
+}
@@ -0,0 +1,145 @@
+package com.goldcosmetics.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goldcosmetics.dto.PosSyncRequest;
+import com.goldcosmetics.dto.PosSyncResponse;
+import com.goldcosmetics.model.User;
+import com.goldcosmetics.service.PosSyncService;
+import com.goldcosmetics.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+@RestController
+public class PosSyncController {
+
+    @Autowired
+    private PosSyncService posSyncService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Limit on the upload, both as sent and unzipped, so neither a huge body
+    // nor a small gzip body that expands into gigabytes is read into memory
+    @Value("${goldcosmetics.pos.max-upload-bytes:20971520}")
+    private int maxUploadBytes;
+
+    /**
+     * Upload offline till sales and get back catalog changes
+     *
+     * The body may be gzip-compressed (Content-Encoding: gzip) and is read as
+     * it arrives, never buffered whole. Uploading the same sales again is
+     * harmless - they are counted as duplicates.
+     *
+     * Tills log in like a browser and send the CSRF token from GET /csrf in
+     * the X-CSRF-TOKEN header (see README).
+     */
+    @PostMapping("/employee/pos/sync")
+    public ResponseEntity<?> sync(HttpServletRequest httpRequest,
+                                  @RequestHeader(value = "Content-Encoding", required = false) String contentEncoding,
+                                  Authentication authentication) throws IOException {
+
+        if (httpRequest.getContentLengthLong() > maxUploadBytes) {
+            return tooLarge();
+        }
+
+        User employee = userService.findByUsername(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (employee.getShopLocation() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Your account is not assigned to a shop"));
+        }
+
+        PosSyncRequest request;
+        LimitedInputStream sent = new LimitedInputStream(httpRequest.getInputStream(), maxUploadBytes);
+        LimitedInputStream unzipped = null;
+        try (InputStream in = "gzip".equalsIgnoreCase(contentEncoding)
+                ? (unzipped = new LimitedInputStream(new GZIPInputStream(sent), maxUploadBytes))
+                : sent) {
+            request = objectMapper.readValue(in, PosSyncRequest.class);
+        } catch (IOException e) {
+            // Jackson may wrap the limit error, so ask the streams
+            if (sent.isOverLimit() || (unzipped != null && unzipped.isOverLimit())) {
+                return tooLarge();
+            }
+            return ResponseEntity.badRequest().body(Map.of("error", "Could not read sync upload: " + e.getMessage()));
+        }
+
+        try {
+            PosSyncResponse response = posSyncService.sync(request, employee.getUsername(), employee.getShopLocation());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<?> tooLarge() {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(Map.of("error", "Sync upload is larger than " + maxUploadBytes + " bytes - sync more often"));
+    }
+
+    /**
+     * Fails the read once more than limit bytes have come through
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+        private boolean overLimit;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long n) throws IOException {
+            count += n;
+            if (count > limit) {
+                overLimit = true;
+                throw new IOException("Upload is larger than " + limit + " bytes");
+            }
+        }
+
+        boolean isOverLimit() {
+            return overLimit;
+        }
+    }
+}
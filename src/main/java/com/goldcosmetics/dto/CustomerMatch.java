@@ -0,0 +1,23 @@
+package com.goldcosmetics.dto;
+
+import lombok.*;
+
+/**
+ * One result of the counter-side customer search
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CustomerMatch {
+    private Long id;
+    private String username;
+    private String fullName;
+    private String phone;
+    private String email;
+
+    // Has bought at the searching employee's shop before
+    private boolean seenAtShop;
+
+    private double score;
+}
@@ -0,0 +1,21 @@
+package com.goldcosmetics.dto;
+
+import com.goldcosmetics.model.Role;
+import com.goldcosmetics.model.UserEventType;
+import lombok.*;
+
+/**
+ * One line in the "just happened" list on a live dashboard
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardActivity {
+    private UserEventType type;
+    private String username;
+    private Role role;
+    private String shopLocation;
+
+    // Epoch milliseconds
+    private long occurredAt;
+}
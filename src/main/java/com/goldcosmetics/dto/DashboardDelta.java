@@ -0,0 +1,37 @@
+package com.goldcosmetics.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What changed since the last push to a live dashboard.
+ *
+ * The counts are increments, so a dashboard adds them to what it shows.
+ * totals (admins only) are absolute and simply replace the old numbers.
+ * resync means the stream could not pick up where it left off - reload the page.
+ */
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DashboardDelta {
+
+    // Journal sequence numbers covered by this delta
+    private long fromSequence;
+    private long toSequence;
+
+    private int newCustomers;
+    private int logins;
+    private int roleChanges;
+
+    // Role -> number of users (admins only)
+    private Map<String, Long> totals;
+
+    // Only set (true) when the dashboard has missed events it cannot be sent
+    private Boolean resync;
+
+    // Newest last, at most a few entries
+    private List<DashboardActivity> recent = new ArrayList<>();
+}
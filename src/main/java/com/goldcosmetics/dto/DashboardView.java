@@ -0,0 +1,32 @@
+package com.goldcosmetics.dto;
+
+import lombok.*;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The widgets of one dashboard page, in layout order, and how long each took
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardView {
+    private Map<String, Object> widgets;
+    private List<WidgetTiming> timings;
+    private double totalMillis;
+
+    /**
+     * The timings as a Server-Timing header, so they show up in the browser dev tools
+     */
+    public String toServerTiming() {
+        StringBuilder header = new StringBuilder();
+        for (WidgetTiming timing : timings) {
+            header.append(timing.getWidget())
+                  .append(";desc=\"").append(timing.getSource()).append('"')
+                  .append(";dur=").append(String.format(Locale.ROOT, "%.1f", timing.getMillis()))
+                  .append(", ");
+        }
+        return header.append("total;dur=").append(String.format(Locale.ROOT, "%.1f", totalMillis)).toString();
+    }
+}
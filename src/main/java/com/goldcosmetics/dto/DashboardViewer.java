@@ -0,0 +1,16 @@
+package com.goldcosmetics.dto;
+
+import com.goldcosmetics.model.Role;
+import lombok.*;
+
+/**
+ * Who is looking at the dashboard - all a widget needs to load its data
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardViewer {
+    private String username;
+    private Role role;
+    private String shopLocation;    // Only looked up when a widget is shared per shop
+}
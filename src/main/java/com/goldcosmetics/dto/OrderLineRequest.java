@@ -0,0 +1,29 @@
+package com.goldcosmetics.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.*;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderLineRequest {
+
+    @NotBlank(message = "Product SKU is required")
+    @Size(max = 50, message = "Product SKU must be at most 50 characters")
+    private String productSku;
+
+    @NotBlank(message = "Product name is required")
+    @Size(max = 100, message = "Product name must be at most 100 characters")
+    private String productName;
+
+    @NotNull(message = "Quantity is required")
+    @Min(value = 1, message = "Quantity must be at least 1")
+    private Integer quantity;
+
+    @NotNull(message = "Unit price is required")
+    @DecimalMin(value = "0.00", message = "Unit price cannot be negative")
+    @Digits(integer = 10, fraction = 2, message = "Unit price must have at most 10 digits and 2 decimals")
+    private BigDecimal unitPrice;
+}
@@ -0,0 +1,37 @@
+package com.goldcosmetics.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import lombok.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A checkout as it is written to the order journal.
+ *
+ * orderReference, customerUsername and placedAt are filled in by the
+ * server, not the client.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderRequest {
+
+    private String orderReference;
+
+    private String customerUsername;
+
+    @NotBlank(message = "Shop location is required")
+    @Size(max = 50, message = "Shop location must be at most 50 characters")
+    private String shopLocation;
+
+    @Size(max = 255, message = "Delivery address must be at most 255 characters")
+    private String deliveryAddress;
+
+    @NotEmpty(message = "An order needs at least one item")
+    @Valid
+    private List<OrderLineRequest> lines;
+
+    private LocalDateTime placedAt;
+}
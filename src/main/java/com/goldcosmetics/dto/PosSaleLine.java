@@ -0,0 +1,14 @@
+package com.goldcosmetics.dto;
+
+import lombok.*;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PosSaleLine {
+    private String productSku;
+    private Integer quantity;
+    private BigDecimal unitPrice;
+}
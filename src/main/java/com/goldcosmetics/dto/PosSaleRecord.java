@@ -0,0 +1,18 @@
+package com.goldcosmetics.dto;
+
+import lombok.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One sale as recorded on the till while it may have been offline
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PosSaleRecord {
+    private String clientSaleId;
+    private LocalDateTime soldAt;
+    private List<PosSaleLine> lines;
+}
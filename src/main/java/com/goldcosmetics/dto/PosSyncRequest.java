@@ -0,0 +1,18 @@
+package com.goldcosmetics.dto;
+
+import lombok.*;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PosSyncRequest {
+
+    // Catalog version the till got from its previous sync (0 = never synced)
+    private long lastSyncVersion;
+
+    @Builder.Default
+    private List<PosSaleRecord> sales = new ArrayList<>();
+}
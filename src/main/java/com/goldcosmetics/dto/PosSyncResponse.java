@@ -0,0 +1,26 @@
+package com.goldcosmetics.dto;
+
+import lombok.*;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PosSyncResponse {
+
+    // Sales saved by this call
+    private int applied;
+
+    // Sales the server already had (safe to clear on the till)
+    private int duplicates;
+
+    // clientSaleId -> reason, for sales that were not accepted
+    private Map<String, String> rejected;
+
+    // Send this back as lastSyncVersion next time
+    private long syncVersion;
+
+    private List<ProductDelta> products;
+}
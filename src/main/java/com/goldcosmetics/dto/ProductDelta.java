@@ -0,0 +1,19 @@
+package com.goldcosmetics.dto;
+
+import lombok.*;
+import java.math.BigDecimal;
+
+/**
+ * The fields a till needs to sell a product
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductDelta {
+    private String sku;
+    private String name;
+    private BigDecimal price;
+    private boolean active;
+    private long version;
+}
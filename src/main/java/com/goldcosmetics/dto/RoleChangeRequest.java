@@ -0,0 +1,14 @@
+package com.goldcosmetics.dto;
+
+import com.goldcosmetics.model.Role;
+import lombok.*;
+
+/**
+ * Body of PUT /admin/api/users/{id}/role
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoleChangeRequest {
+    private Role role;
+}
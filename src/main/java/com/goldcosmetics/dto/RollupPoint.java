@@ -0,0 +1,15 @@
+package com.goldcosmetics.dto;
+
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * One point on an analytics chart
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupPoint {
+    private LocalDateTime start;
+    private long count;
+}
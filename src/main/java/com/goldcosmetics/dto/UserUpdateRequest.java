@@ -0,0 +1,25 @@
+package com.goldcosmetics.dto;
+
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+/**
+ * Body of PUT /admin/api/users/{id} - fields left out are not changed.
+ * Same limits as the User columns, so a bad value is a 400, not a database error.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserUpdateRequest {
+
+    @Size(min = 2, max = 100, message = "Name must be 2-100 characters")
+    private String fullName;
+
+    @Size(max = 20, message = "Phone number must be at most 20 characters")
+    @Pattern(regexp = "^[0-9+\\-\\s()]*$", message = "Please provide a valid phone number")
+    private String phone;
+
+    @Size(max = 255, message = "Delivery address must be at most 255 characters")
+    private String deliveryAddress;
+}
@@ -0,0 +1,51 @@
+package com.goldcosmetics.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.goldcosmetics.model.Role;
+import com.goldcosmetics.model.User;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * A user as returned by the admin API (never includes the password).
+ *
+ * Only fields covered by version belong here: the strong ETag "id.version"
+ * promises the same bytes for the same version. That is why the last login
+ * time (which does not bump the version) is left out.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserView {
+    private Long id;
+    private String username;
+    private String email;
+    private String fullName;
+    private String phone;
+    private Role role;
+    private String shopLocation;
+    private String deliveryAddress;
+    private Boolean active;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Long version;
+
+    public static UserView from(User user) {
+        return UserView.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .fullName(user.getFullName())
+                .phone(user.getPhone())
+                .role(user.getRole())
+                .shopLocation(user.getShopLocation())
+                .deliveryAddress(user.getDeliveryAddress())
+                .active(user.getIsActive())
+                .createdAt(user.getCreatedAt())
+                .updatedAt(user.getUpdatedAt())
+                .version(user.getVersion())
+                .build();
+    }
+}
@@ -0,0 +1,26 @@
+package com.goldcosmetics.dto;
+
+import lombok.*;
+
+/**
+ * Running numbers for one dashboard widget since startup
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WidgetStats {
+    private String widget;
+    private String scope;
+    private long timeoutMs;
+    private long cacheTtlMs;
+    private long requests;      // Times the widget was on a page
+    private long cacheHits;
+    private long loads;         // Queries that finished (also ones a page stopped waiting for)
+    private long timeouts;
+    private long failures;
+    private long rejected;      // Pool was full - fallback shown straight away
+    private double avgLoadMs;
+    private double maxLoadMs;
+    private double lastLoadMs;
+}
@@ -0,0 +1,15 @@
+package com.goldcosmetics.dto;
+
+import lombok.*;
+
+/**
+ * How one widget was filled in for one page view
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WidgetTiming {
+    private String widget;
+    private String source;      // cache, loaded, timeout, error or rejected
+    private double millis;      // From the start of the page until the widget was ready
+}
@@ -0,0 +1,50 @@
+package com.goldcosmetics.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * One closed time bucket of user activity (e.g. "12 Karagita customer logins, 14:00-15:00")
+ * as counted by one app instance - charts add up the rows of all instances
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "activity_rollups",
+       uniqueConstraints = @UniqueConstraint(name = "uk_activity_rollups_bucket",
+               columnNames = {"metric", "resolution", "bucket_start", "shop_location", "role", "instance_id"}))
+public class ActivityRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private RollupMetric metric;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RollupResolution resolution;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    // "-" when the user has no shop (customers)
+    @Column(name = "shop_location", nullable = false, length = 50)
+    private String shopLocation;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Role role;
+
+    // App instance whose user event journal the count came from
+    @Column(name = "instance_id", nullable = false, length = 64)
+    private String instanceId;
+
+    @Column(nullable = false)
+    private Long count;
+}
@@ -0,0 +1,6 @@
+package com.goldcosmetics.model;
+
+public enum NotificationChannel {
+    EMAIL,
+    SMS
+}
@@ -0,0 +1,8 @@
+package com.goldcosmetics.model;
+
+public enum NotificationStatus {
+    PENDING,
+    IN_FLIGHT,  // Claimed by a dispatcher until its lease runs out
+    SENT,
+    FAILED      // Gave up after the last retry
+}
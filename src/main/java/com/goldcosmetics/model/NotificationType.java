@@ -0,0 +1,7 @@
+package com.goldcosmetics.model;
+
+public enum NotificationType {
+    REGISTRATION_CONFIRMATION,
+    PASSWORD_CHANGED,
+    EMPLOYEE_ONBOARDING
+}
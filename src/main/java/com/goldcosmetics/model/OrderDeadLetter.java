@@ -0,0 +1,48 @@
+package com.goldcosmetics.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * An accepted order the database refused to save.
+ *
+ * The customer was already told the order was received, so it is kept here
+ * (as the journaled JSON) for staff to fix and re-enter instead of being lost.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "order_dead_letters")
+public class OrderDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_reference", nullable = false, unique = true, length = 36)
+    private String orderReference;
+
+    @Column(name = "customer_username", length = 50)
+    private String customerUsername;
+
+    @Column(name = "shop_location", length = 50)
+    private String shopLocation;
+
+    // The order exactly as it was journaled
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(length = 500)
+    private String error;
+
+    @Column(name = "failed_at", nullable = false)
+    private LocalDateTime failedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        failedAt = LocalDateTime.now();
+    }
+}
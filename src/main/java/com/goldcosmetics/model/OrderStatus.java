@@ -0,0 +1,8 @@
+package com.goldcosmetics.model;
+
+public enum OrderStatus {
+    RECEIVED,
+    PROCESSING,
+    DELIVERED,
+    CANCELLED
+}
@@ -0,0 +1,42 @@
+package com.goldcosmetics.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * A signed payment callback the database refused to save.
+ *
+ * The gateway was told it arrived, so it is kept here (as the raw body) for
+ * staff to look at instead of being retried forever or lost.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "payment_dead_letters")
+public class PaymentDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "transaction_reference", length = 100)
+    private String transactionReference;
+
+    // The callback body exactly as the gateway sent it
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(length = 500)
+    private String error;
+
+    @Column(name = "failed_at", nullable = false)
+    private LocalDateTime failedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        failedAt = LocalDateTime.now();
+    }
+}
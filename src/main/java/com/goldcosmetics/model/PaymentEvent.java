@@ -0,0 +1,47 @@
+package com.goldcosmetics.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * A payment callback from the gateway (Paystack).
+ *
+ * One transaction can report several events (failed, then success, then a
+ * refund), so duplicates are caught by reference + event + status. Rows are
+ * inserted in bulk by PaymentCallbackService; the order's payment status is
+ * worked out from all of a reference's events, in the order they arrived.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "payment_events",
+       uniqueConstraints = @UniqueConstraint(name = "uk_payment_events_event",
+                                             columnNames = {"transaction_reference", "event_type", "payment_status"}))
+public class PaymentEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Same as CustomerOrder.orderReference
+    @Column(name = "transaction_reference", nullable = false, length = 100)
+    private String transactionReference;
+
+    // e.g. "charge.success"
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status", nullable = false)
+    private PaymentStatus paymentStatus;
+
+    // In the smallest currency unit, as the gateway sends it
+    @Column(name = "amount")
+    private Long amount;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+}
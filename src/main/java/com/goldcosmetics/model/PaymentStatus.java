@@ -0,0 +1,11 @@
+package com.goldcosmetics.model;
+
+public enum PaymentStatus {
+    PENDING,
+    PAID,
+    FAILED,
+    // Paid, then reversed or refunded by the gateway
+    REFUNDED,
+    // The gateway reported a payment that does not match the order total - staff must check
+    AMOUNT_MISMATCH
+}
@@ -0,0 +1,45 @@
+package com.goldcosmetics.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * An in-store sale recorded on a shop till and uploaded by POS sync.
+ *
+ * Rows are inserted in bulk by PosSyncService, so column names are spelled out.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "pos_sales")
+public class PosSale {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Generated on the till - makes re-uploads harmless
+    @Column(name = "client_sale_id", nullable = false, unique = true, length = 36)
+    private String clientSaleId;
+
+    @Column(name = "employee_username", nullable = false, length = 50)
+    private String employeeUsername;
+
+    @Column(name = "shop_location", nullable = false, length = 50)
+    private String shopLocation;
+
+    @Column(name = "total_amount", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalAmount;
+
+    // When the sale happened at the till
+    @Column(name = "sold_at", nullable = false)
+    private LocalDateTime soldAt;
+
+    // When the server received it
+    @Column(name = "synced_at", nullable = false)
+    private LocalDateTime syncedAt;
+}
@@ -0,0 +1,31 @@
+package com.goldcosmetics.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "pos_sale_items",
+       indexes = @Index(name = "idx_pos_sale_items_sale", columnList = "client_sale_id"))
+public class PosSaleItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "client_sale_id", nullable = false, length = 36)
+    private String clientSaleId;
+
+    @Column(name = "product_sku", nullable = false, length = 50)
+    private String productSku;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "unit_price", nullable = false, precision = 12, scale = 2)
+    private BigDecimal unitPrice;
+}
@@ -0,0 +1,62 @@
+package com.goldcosmetics.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "products",
+       indexes = @Index(name = "idx_products_catalog_version", columnList = "catalog_version"))
+public class Product {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 50)
+    @NotBlank(message = "SKU is required")
+    private String sku;
+
+    @Column(nullable = false, length = 100)
+    @NotBlank(message = "Product name is required")
+    private String name;
+
+    @Column(length = 50)
+    private String category;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    @NotNull(message = "Price is required")
+    @DecimalMin(value = "0.00", message = "Price cannot be negative")
+    private BigDecimal price;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean isActive = true;
+
+    // Bumped on every change - POS tills ask for "everything after version N"
+    @Column(name = "catalog_version", nullable = false)
+    private Long catalogVersion;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
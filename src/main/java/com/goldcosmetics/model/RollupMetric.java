@@ -0,0 +1,7 @@
+package com.goldcosmetics.model;
+
+public enum RollupMetric {
+    REGISTRATIONS,
+    LOGINS,
+    ROLE_CHANGES
+}
@@ -0,0 +1,26 @@
+package com.goldcosmetics.model;
+
+/**
+ * Bucket sizes for the activity rollups, and how many buckets of each we keep in memory
+ */
+public enum RollupResolution {
+    MINUTE(60_000L, 24 * 60),        // last 24 hours
+    HOUR(3_600_000L, 24 * 92),       // last ~3 months
+    DAY(86_400_000L, 366 * 2);       // last ~2 years
+
+    private final long widthMillis;
+    private final int slots;
+
+    RollupResolution(long widthMillis, int slots) {
+        this.widthMillis = widthMillis;
+        this.slots = slots;
+    }
+
+    public long getWidthMillis() {
+        return widthMillis;
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+}
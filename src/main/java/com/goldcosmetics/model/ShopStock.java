@@ -0,0 +1,35 @@
+package com.goldcosmetics.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * How many units of a product a shop has on hand
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "shop_stock",
+       uniqueConstraints = @UniqueConstraint(name = "uk_shop_stock_shop_sku",
+                                             columnNames = {"shop_location", "product_sku"}))
+public class ShopStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "shop_location", nullable = false, length = 50)
+    private String shopLocation;
+
+    @Column(name = "product_sku", nullable = false, length = 50)
+    private String productSku;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -3,6 +3,7 @@ package com.goldcosmetics.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.OptimisticLock;
 import java.time.LocalDateTime;
 
 // LOMBOK ANNOTATIONS (Generates code for us!)
@@ -65,8 +66,17 @@ public class User {
     private LocalDateTime updatedAt;
     
     
+    // Not part of the version: only ever set by UserRepository.updateLastLoginAt,
+    // and left out of the admin API's UserView so the ETags stay honest
+    @OptimisticLock(excluded = true)
     private LocalDateTime lastLoginAt;
     
+    // Goes up by one on every change (used for ETags and to stop two admins
+    // overwriting each other); existing rows start at 0
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,28 @@
+package com.goldcosmetics.model;
+
+/**
+ * Something that happened to a user account, as written to the user event journal.
+ *
+ * username, role and shopLocation may be null (e.g. DELETED only knows the id).
+ */
+public record UserEvent(long sequence, long occurredAt, UserEventType type, long userId,
+                        String username, Role role, String shopLocation) {
+
+    public static UserEvent of(UserEventType type, User user) {
+        return new UserEvent(0, System.currentTimeMillis(), type, user.getId(),
+                             user.getUsername(), user.getRole(), user.getShopLocation());
+    }
+
+    public static UserEvent of(UserEventType type, User user, long occurredAt) {
+        return new UserEvent(0, occurredAt, type, user.getId(),
+                             user.getUsername(), user.getRole(), user.getShopLocation());
+    }
+
+    public static UserEvent of(UserEventType type, Long userId) {
+        return new UserEvent(0, System.currentTimeMillis(), type, userId, null, null, null);
+    }
+
+    public UserEvent withSequence(long newSequence) {
+        return new UserEvent(newSequence, occurredAt, type, userId, username, role, shopLocation);
+    }
+}
@@ -0,0 +1,52 @@
+package com.goldcosmetics.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Audit trail of user account changes, filled in batches from the user event journal
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "user_events",
+       indexes = @Index(name = "idx_user_events_user", columnList = "user_id"),
+       uniqueConstraints = @UniqueConstraint(name = "uk_user_events_instance_sequence",
+                                             columnNames = { "instance_id", "sequence" }))
+public class UserEventLog {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // App instance whose journal the event came from
+    @Column(name = "instance_id", nullable = false, length = 64)
+    private String instanceId;
+
+    // Journal sequence number - only unique within one instance
+    @Column(nullable = false)
+    private Long sequence;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 30)
+    private UserEventType eventType;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(length = 50)
+    private String username;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private Role role;
+
+    @Column(name = "shop_location", length = 50)
+    private String shopLocation;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+}
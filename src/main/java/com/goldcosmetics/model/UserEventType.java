@@ -0,0 +1,14 @@
+package com.goldcosmetics.model;
+
+// The user event journal stores each type as a fixed code (UserEventJournal.typeCode) -
+// a new value needs a new code there
+public enum UserEventType {
+    IMPORTED,          // user existed before the journal did
+    REGISTERED,
+    ROLE_CHANGED,
+    ACTIVATED,
+    DEACTIVATED,
+    DELETED,
+    PASSWORD_CHANGED,
+    LOGGED_IN
+}
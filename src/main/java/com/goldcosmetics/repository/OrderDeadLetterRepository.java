@@ -0,0 +1,10 @@
+package com.goldcosmetics.repository;
+
+import com.goldcosmetics.model.OrderDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OrderDeadLetterRepository extends JpaRepository<OrderDeadLetter, Long> {
+    boolean existsByOrderReference(String orderReference);
+}
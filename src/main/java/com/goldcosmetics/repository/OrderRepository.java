@@ -0,0 +1,23 @@
+package com.goldcosmetics.repository;
+
+import com.goldcosmetics.model.CustomerOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderRepository extends JpaRepository<CustomerOrder, Long> {
+    Optional<CustomerOrder> findByOrderReference(String orderReference);
+
+    List<CustomerOrder> findByCustomerUsernameOrderByPlacedAtDesc(String customerUsername);
+
+    List<CustomerOrder> findTop5ByCustomerUsernameOrderByPlacedAtDesc(String customerUsername);
+
+    // One query to find which orders of a batch are already in the database
+    @Query("select o.orderReference from CustomerOrder o where o.orderReference in :references")
+    List<String> findExistingReferences(@Param("references") Collection<String> references);
+}
@@ -0,0 +1,11 @@
+package com.goldcosmetics.repository;
+
+import com.goldcosmetics.model.NotificationStatus;
+import com.goldcosmetics.model.OutboxNotification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxNotificationRepository extends JpaRepository<OutboxNotification, Long> {
+    long countByStatus(NotificationStatus status);
+}
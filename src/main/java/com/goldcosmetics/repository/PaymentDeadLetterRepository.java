@@ -0,0 +1,9 @@
+package com.goldcosmetics.repository;
+
+import com.goldcosmetics.model.PaymentDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PaymentDeadLetterRepository extends JpaRepository<PaymentDeadLetter, Long> {
+}
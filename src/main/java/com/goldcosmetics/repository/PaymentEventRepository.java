@@ -0,0 +1,11 @@
+package com.goldcosmetics.repository;
+
+import com.goldcosmetics.model.PaymentEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface PaymentEventRepository extends JpaRepository<PaymentEvent, Long> {
+    List<PaymentEvent> findByTransactionReferenceOrderById(String transactionReference);
+}
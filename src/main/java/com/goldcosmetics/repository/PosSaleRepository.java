@@ -0,0 +1,15 @@
+package com.goldcosmetics.repository;
+
+import com.goldcosmetics.model.PosSale;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PosSaleRepository extends JpaRepository<PosSale, Long> {
+    Optional<PosSale> findByClientSaleId(String clientSaleId);
+
+    List<PosSale> findByShopLocationAndSoldAtBetween(String shopLocation, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,30 @@
+package com.goldcosmetics.repository;
+
+import com.goldcosmetics.model.Product;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProductRepository extends JpaRepository<Product, Long> {
+    Optional<Product> findBySku(String sku);
+
+    // One query to check the SKUs of a whole POS upload
+    @Query("select p.sku from Product p where p.sku in :skus")
+    List<String> findExistingSkus(@Param("skus") Collection<String> skus);
+
+    List<Product> findByIsActiveTrue();
+
+    // Catalog changes a POS till has not seen yet
+    List<Product> findByCatalogVersionGreaterThanOrderByCatalogVersionAsc(Long catalogVersion);
+
+    @Query(value = "select nextval('catalog_version_seq')", nativeQuery = true)
+    Long nextCatalogVersion();
+
+    @Query("select coalesce(max(p.catalogVersion), 0) from Product p")
+    Long findCurrentCatalogVersion();
+}
@@ -0,0 +1,14 @@
+package com.goldcosmetics.repository;
+
+import com.goldcosmetics.model.ShopStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ShopStockRepository extends JpaRepository<ShopStock, Long> {
+    Optional<ShopStock> findByShopLocationAndProductSku(String shopLocation, String productSku);
+
+    List<ShopStock> findByShopLocation(String shopLocation);
+}
@@ -0,0 +1,17 @@
+package com.goldcosmetics.repository;
+
+import com.goldcosmetics.model.UserEventLog;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface UserEventLogRepository extends JpaRepository<UserEventLog, Long> {
+    List<UserEventLog> findByUserIdOrderByOccurredAtAscIdAsc(Long userId);
+
+    // Last event this instance has already copied to the table
+    @Query("select coalesce(max(e.sequence), 0) from UserEventLog e where e.instanceId = :instanceId")
+    Long findLastSequence(@Param("instanceId") String instanceId);
+}
@@ -3,7 +3,12 @@ package com.goldcosmetics.repository;
 import com.goldcosmetics.model.User;
 import com.goldcosmetics.model.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
@@ -13,6 +18,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
 
+    List<User> findByUsernameIn(Collection<String> usernames);
+
     Boolean existsByUsername(String username);
 
     Boolean existsByEmail(String email);
@@ -26,4 +33,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findByIsActiveFalse();
 
     Long countByRole(Role role);
+
+    // Just the version column - enough to answer a conditional GET without loading the user
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // A login is not an edit: leaves version (so the ETags) and updatedAt alone.
+    // Never moves the time backwards if batches are saved out of order.
+    @Modifying
+    @Query("update User u set u.lastLoginAt = :loggedInAt where u.username = :username "
+         + "and (u.lastLoginAt is null or u.lastLoginAt < :loggedInAt)")
+    int updateLastLoginAt(@Param("username") String username, @Param("loggedInAt") LocalDateTime loggedInAt);
 }
@@ -0,0 +1,428 @@
+package com.goldcosmetics.service;
+
+import com.goldcosmetics.dto.RollupPoint;
+import com.goldcosmetics.model.Role;
+import com.goldcosmetics.model.RollupMetric;
+import com.goldcosmetics.model.RollupResolution;
+import com.goldcosmetics.model.UserEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pre-aggregated counts of registrations, logins and role changes per shop and role.
+ *
+ * Every user event from the journal adds 1 to a minute, an hour and a day
+ * bucket. Buckets live in fixed-size ring buffers of longs (see RollupResolution
+ * for how far back each goes), so a chart is built by adding up a few hundred
+ * numbers - the users table is never scanned.
+ *
+ * Closed hour and day buckets are saved to activity_rollups every minute. Charts
+ * reaching further back than memory holds read those rows instead. On startup
+ * the rows are loaded back and the journal is replayed for anything newer.
+ *
+ * Every app instance only sees the events of its own journal, so each one saves
+ * its own rows (keyed by the journal's instance id) and hour/day charts add up
+ * the rows of the other instances. Their counts show up once they have saved
+ * them, i.e. within a minute of an hour closing.
+ */
+@Service
+public class ActivityRollupService {
+
+    private static final String NO_SHOP = "-";
+    private static final long FLUSH_INTERVAL_MS = 60_000;
+    private static final int MAX_POINTS = 10_000;
+    private static final RollupResolution[] PERSISTED = { RollupResolution.HOUR, RollupResolution.DAY };
+
+    private static final String UPSERT_SQL =
+            "insert into activity_rollups (metric, resolution, bucket_start, shop_location, role, instance_id, count) "
+          + "values (?, ?, ?, ?, ?, ?, ?) "
+          + "on conflict (metric, resolution, bucket_start, shop_location, role, instance_id) "
+          + "do update set count = excluded.count";
+
+    @Autowired
+    private UserEventJournal userEventJournal;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Time zone for bucket boundaries (empty = server time zone)
+    @Value("${goldcosmetics.analytics.zone:}")
+    private String zoneName;
+
+    private record SeriesKey(RollupMetric metric, String shopLocation, Role role) {
+    }
+
+    private final Map<SeriesKey, Series> series = new ConcurrentHashMap<>();
+
+    // Last bucket (per resolution) that has been saved to the database
+    private final long[] persistedThrough = new long[RollupResolution.values().length];
+
+    // Bucket boundaries are in local time; fixed offset (Kenya has no daylight saving)
+    private long offsetMillis;
+
+    private long lastAppliedSequence;
+
+    // Live events that arrive during the startup replay (null once it is done)
+    private List<UserEvent> heldDuringReplay = new ArrayList<>();
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    @PostConstruct
+    public void start() {
+        ZoneId zone = zoneName.isBlank() ? ZoneId.systemDefault() : ZoneId.of(zoneName);
+        offsetMillis = zone.getRules().getOffset(Instant.now()).getTotalSeconds() * 1000L;
+
+        Arrays.fill(persistedThrough, Long.MIN_VALUE);
+        loadPersistedBuckets();
+
+        // Listen first, then replay. Live events are held back until the replay
+        // is done - applied in between, they would move lastAppliedSequence past
+        // replayed events that have not been counted yet.
+        userEventJournal.subscribe(this::onLiveEvent);
+        replayJournal();
+        synchronized (this) {
+            heldDuringReplay.forEach(event -> apply(event, false));
+            heldDuringReplay = null;
+        }
+
+        running = true;
+        flusher = new Thread(this::flushLoop, "activity-rollup-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.interrupt();
+            flusher.join(5000);
+        }
+        flush();
+    }
+
+    /**
+     * Counts per bucket in [from, to), added up over the matching shops and roles
+     *
+     * @param shopLocation null = all shops, "-" = users without a shop
+     * @param role         null = all roles
+     */
+    public List<RollupPoint> query(RollupMetric metric, RollupResolution resolution,
+                                   LocalDateTime from, LocalDateTime to, String shopLocation, Role role) {
+        long fromIdx = bucketOf(toLocalMillis(from), resolution);
+        long toIdx = bucketOf(toLocalMillis(to) - 1, resolution);
+        if (toIdx < fromIdx) {
+            return List.of();
+        }
+        if (toIdx - fromIdx + 1 > MAX_POINTS) {
+            throw new IllegalArgumentException("Range too long - use a bigger resolution (max " + MAX_POINTS + " points)");
+        }
+
+        long[] totals = new long[(int) (toIdx - fromIdx + 1)];
+        long oldestInMemory = currentBucket(resolution) - resolution.getSlots() + 1;
+        long memoryFrom = fromIdx;
+
+        // Older than memory holds - use our saved rollup rows for that part
+        if (fromIdx < oldestInMemory && resolution != RollupResolution.MINUTE) {
+            long dbTo = Math.min(toIdx, getPersistedThrough(resolution));
+            memoryFrom = Math.max(fromIdx, dbTo + 1);
+        }
+        memoryFrom = Math.max(memoryFrom, oldestInMemory);
+
+        // Other instances' rows for the whole range, ours only before memoryFrom
+        if (resolution != RollupResolution.MINUTE) {
+            addFromDatabase(totals, fromIdx, toIdx, memoryFrom, metric, resolution, shopLocation, role);
+        }
+
+        for (Map.Entry<SeriesKey, Series> entry : series.entrySet()) {
+            SeriesKey key = entry.getKey();
+            if (key.metric() != metric
+                    || (shopLocation != null && !shopLocation.equals(key.shopLocation()))
+                    || (role != null && role != key.role())) {
+                continue;
+            }
+            entry.getValue().addTo(totals, resolution, fromIdx, memoryFrom, toIdx);
+        }
+
+        List<RollupPoint> points = new ArrayList<>(totals.length);
+        for (int i = 0; i < totals.length; i++) {
+            points.add(new RollupPoint(startOf(fromIdx + i, resolution), totals[i]));
+        }
+        return points;
+    }
+
+    private synchronized long getPersistedThrough(RollupResolution resolution) {
+        return persistedThrough[resolution.ordinal()];
+    }
+
+    // =======================================================================
+    // FEEDING THE BUCKETS
+    // =======================================================================
+
+    // Runs inside the journal append - only ever a quick in-memory step
+    private synchronized void onLiveEvent(UserEvent event) {
+        if (heldDuringReplay != null) {
+            heldDuringReplay.add(event);
+        } else {
+            apply(event, false);
+        }
+    }
+
+    private synchronized void apply(UserEvent event, boolean fromReplay) {
+        if (event.sequence() <= lastAppliedSequence) {
+            return;
+        }
+        lastAppliedSequence = event.sequence();
+
+        RollupMetric metric = switch (event.type()) {
+            case REGISTERED -> RollupMetric.REGISTRATIONS;
+            case LOGGED_IN -> RollupMetric.LOGINS;
+            case ROLE_CHANGED -> RollupMetric.ROLE_CHANGES;
+            default -> null;
+        };
+        if (metric == null || event.role() == null) {
+            return;
+        }
+
+        SeriesKey key = new SeriesKey(metric,
+                event.shopLocation() == null ? NO_SHOP : event.shopLocation(), event.role());
+        Series target = series.computeIfAbsent(key, k -> new Series());
+        long localMillis = event.occurredAt() + offsetMillis;
+
+        for (RollupResolution resolution : RollupResolution.values()) {
+            long idx = bucketOf(localMillis, resolution);
+            // Already counted in the rows loaded from the database
+            if (fromReplay && idx <= persistedThrough[resolution.ordinal()]) {
+                continue;
+            }
+            target.add(resolution, idx);
+        }
+    }
+
+    private void loadPersistedBuckets() {
+        String instanceId = userEventJournal.getInstanceId();
+        for (RollupResolution resolution : PERSISTED) {
+            long oldest = currentBucket(resolution) - resolution.getSlots() + 1;
+            jdbcTemplate.query(
+                    "select metric, bucket_start, shop_location, role, count from activity_rollups "
+                  + "where instance_id = ? and resolution = ? and bucket_start >= ?",
+                    rs -> {
+                        SeriesKey key = new SeriesKey(RollupMetric.valueOf(rs.getString("metric")),
+                                rs.getString("shop_location"), Role.valueOf(rs.getString("role")));
+                        long idx = bucketOf(toLocalMillis(rs.getTimestamp("bucket_start").toLocalDateTime()), resolution);
+                        series.computeIfAbsent(key, k -> new Series()).set(resolution, idx, rs.getLong("count"));
+                    },
+                    instanceId, resolution.name(), Timestamp.valueOf(startOf(oldest, resolution)));
+
+            Timestamp latest = jdbcTemplate.queryForObject(
+                    "select max(bucket_start) from activity_rollups where instance_id = ? and resolution = ?",
+                    Timestamp.class, instanceId, resolution.name());
+            if (latest != null) {
+                persistedThrough[resolution.ordinal()] = bucketOf(toLocalMillis(latest.toLocalDateTime()), resolution);
+            }
+        }
+    }
+
+    private void replayJournal() {
+        long started = System.currentTimeMillis();
+        long replayed = userEventJournal.replay(event -> apply(event, true));
+        System.out.println("📊 Activity rollups ready (journal replayed to #" + replayed + " in "
+                         + (System.currentTimeMillis() - started) + "ms)");
+    }
+
+    // =======================================================================
+    // SAVING CLOSED BUCKETS
+    // =======================================================================
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                Thread.sleep(FLUSH_INTERVAL_MS);
+                flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                System.out.println("⚠️ Saving activity rollups failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Save every closed hour/day bucket not saved yet (plus the last saved one
+     * again, in case a late event landed in it)
+     */
+    private void flush() {
+        List<Object[]> rows = new ArrayList<>();
+        String instanceId = userEventJournal.getInstanceId();
+        long[] newPersisted;
+
+        // Collect under the lock, write to the database outside it -
+        // apply() runs inside journal appends and must never wait on the database
+        synchronized (this) {
+            newPersisted = persistedThrough.clone();
+
+            for (RollupResolution resolution : PERSISTED) {
+                long closed = currentBucket(resolution) - 1;
+                long first = Math.max(persistedThrough[resolution.ordinal()],
+                                      currentBucket(resolution) - resolution.getSlots() + 1);
+                for (long idx = first; idx <= closed; idx++) {
+                    Timestamp start = Timestamp.valueOf(startOf(idx, resolution));
+                    for (Map.Entry<SeriesKey, Series> entry : series.entrySet()) {
+                        long count = entry.getValue().get(resolution, idx);
+                        if (count > 0) {
+                            SeriesKey key = entry.getKey();
+                            rows.add(new Object[] { key.metric().name(), resolution.name(), start,
+                                                    key.shopLocation(), key.role().name(), instanceId, count });
+                        }
+                    }
+                }
+                newPersisted[resolution.ordinal()] = closed;
+            }
+        }
+
+        if (!rows.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, rows));
+        }
+        synchronized (this) {
+            System.arraycopy(newPersisted, 0, persistedThrough, 0, newPersisted.length);
+        }
+    }
+
+    // =======================================================================
+    // TIME HELPERS (bucket index = local time / bucket width)
+    // =======================================================================
+
+    private long currentBucket(RollupResolution resolution) {
+        return bucketOf(System.currentTimeMillis() + offsetMillis, resolution);
+    }
+
+    private static long bucketOf(long localMillis, RollupResolution resolution) {
+        return Math.floorDiv(localMillis, resolution.getWidthMillis());
+    }
+
+    private static long toLocalMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime startOf(long idx, RollupResolution resolution) {
+        return LocalDateTime.ofEpochSecond(idx * resolution.getWidthMillis() / 1000, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Add the saved counts for buckets [fromIdx, toIdx]: every other instance's,
+     * and ours only for buckets before ownUntilIdx (the rest is in memory)
+     */
+    private void addFromDatabase(long[] totals, long fromIdx, long toIdx, long ownUntilIdx, RollupMetric metric,
+                                 RollupResolution resolution, String shopLocation, Role role) {
+        StringBuilder sql = new StringBuilder(
+                "select bucket_start, sum(count) as total from activity_rollups "
+              + "where metric = ? and resolution = ? and bucket_start >= ? and bucket_start <= ? "
+              + "and (instance_id <> ? or bucket_start < ?)");
+        List<Object> args = new ArrayList<>(List.of(metric.name(), resolution.name(),
+                Timestamp.valueOf(startOf(fromIdx, resolution)), Timestamp.valueOf(startOf(toIdx, resolution)),
+                userEventJournal.getInstanceId(), Timestamp.valueOf(startOf(ownUntilIdx, resolution))));
+        if (shopLocation != null) {
+            sql.append(" and shop_location = ?");
+            args.add(shopLocation);
+        }
+        if (role != null) {
+            sql.append(" and role = ?");
+            args.add(role.name());
+        }
+        sql.append(" group by bucket_start");
+
+        jdbcTemplate.query(sql.toString(), rs -> {
+            long idx = bucketOf(toLocalMillis(rs.getTimestamp("bucket_start").toLocalDateTime()), resolution);
+            totals[(int) (idx - fromIdx)] += rs.getLong("total");
+        }, args.toArray());
+    }
+
+    // =======================================================================
+    // RING BUFFERS
+    // =======================================================================
+
+    /**
+     * Counts for one (metric, shop, role): per resolution, a ring of slots
+     * and the bucket index each slot currently holds
+     */
+    private static final class Series {
+
+        private final long[][] bucketOfSlot = new long[RollupResolution.values().length][];
+        private final long[][] counts = new long[RollupResolution.values().length][];
+
+        Series() {
+            for (RollupResolution resolution : RollupResolution.values()) {
+                bucketOfSlot[resolution.ordinal()] = new long[resolution.getSlots()];
+                Arrays.fill(bucketOfSlot[resolution.ordinal()], Long.MIN_VALUE);
+                counts[resolution.ordinal()] = new long[resolution.getSlots()];
+            }
+        }
+
+        synchronized void add(RollupResolution resolution, long idx) {
+            int slot = claim(resolution, idx);
+            if (slot >= 0) {
+                counts[resolution.ordinal()][slot]++;
+            }
+        }
+
+        synchronized void set(RollupResolution resolution, long idx, long count) {
+            int slot = claim(resolution, idx);
+            if (slot >= 0) {
+                counts[resolution.ordinal()][slot] = count;
+            }
+        }
+
+        synchronized long get(RollupResolution resolution, long idx) {
+            int slot = (int) Math.floorMod(idx, (long) resolution.getSlots());
+            return bucketOfSlot[resolution.ordinal()][slot] == idx ? counts[resolution.ordinal()][slot] : 0;
+        }
+
+        /**
+         * Add this series' counts for buckets [from, to] into totals (indexed from base)
+         */
+        synchronized void addTo(long[] totals, RollupResolution resolution, long base, long from, long to) {
+            long[] buckets = bucketOfSlot[resolution.ordinal()];
+            long[] values = counts[resolution.ordinal()];
+            for (long idx = from; idx <= to; idx++) {
+                int slot = (int) Math.floorMod(idx, (long) buckets.length);
+                if (buckets[slot] == idx) {
+                    totals[(int) (idx - base)] += values[slot];
+                }
+            }
+        }
+
+        // Slot for this bucket, recycling the slot if it held an older bucket; -1 if too old
+        private int claim(RollupResolution resolution, long idx) {
+            long[] buckets = bucketOfSlot[resolution.ordinal()];
+            int slot = (int) Math.floorMod(idx, (long) buckets.length);
+            if (buckets[slot] != idx) {
+                if (buckets[slot] > idx) {
+                    return -1;
+                }
+                buckets[slot] = idx;
+                counts[resolution.ordinal()][slot] = 0;
+            }
+            return slot;
+        }
+    }
+}
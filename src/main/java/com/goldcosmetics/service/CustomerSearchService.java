@@ -0,0 +1,474 @@
+package com.goldcosmetics.service;
+
+import com.goldcosmetics.dto.CustomerMatch;
+import com.goldcosmetics.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory trigram index for finding customers at the till by part of
+ * their name, phone number or email.
+ *
+ * Every customer's fields are cut into 3-character pieces ("ang", "nge",
+ * "gel", ...). A search looks up the pieces of the query and counts how
+ * many each customer shares with it - no LIKE scans over the users table.
+ *
+ * Customers who have ordered at the employee's shop rank higher.
+ * The index is loaded once at startup and kept up to date by UserService.
+ */
+@Service
+public class CustomerSearchService {
+
+    // Share of query trigrams a customer must match to be returned
+    private static final double MIN_MATCH_FRACTION = 0.6;
+    private static final double SHOP_BONUS = 0.5;
+    private static final double EXACT_BONUS = 0.25;
+    private static final int MAX_LIMIT = 50;
+
+    // Compact once this share of entries are stale (updated or deleted customers)
+    private static final double MAX_DEAD_FRACTION = 0.25;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    private volatile boolean ready;
+
+    // Changes made while rebuild() reads the database (guarded by the lock)
+    private List<Consumer<Index>> changesDuringRebuild;
+
+    // Per-thread scratch space for counting matches
+    private final ThreadLocal<int[]> scratch = ThreadLocal.withInitial(() -> new int[0]);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        Thread loader = new Thread(this::rebuild, "customer-search-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Reload every customer from the database.
+     *
+     * Changes committed while the reload runs are applied to the old index
+     * and also remembered, then replayed onto the new one before it is
+     * swapped in - otherwise they would be lost with the old index.
+     */
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        Index fresh = new Index();
+
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            jdbcTemplate.query("select id, username, full_name, phone, email from users where role = 'CUSTOMER'",
+                    rs -> {
+                        fresh.add(rs.getLong("id"), rs.getString("username"), rs.getString("full_name"),
+                                  rs.getString("phone"), rs.getString("email"), 0L);
+                    });
+            jdbcTemplate.query("select distinct customer_username, shop_location from orders",
+                    rs -> {
+                        fresh.recordShop(rs.getString("customer_username"), rs.getString("shop_location"));
+                    });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            replayed = changesDuringRebuild.size();
+            for (Consumer<Index> change : changesDuringRebuild) {
+                change.accept(fresh);
+            }
+            changesDuringRebuild = null;
+            index = fresh;
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+
+        System.out.println("🔎 Customer search index loaded: " + fresh.liveCount() + " customers in "
+                         + (System.currentTimeMillis() - started) + "ms (" + replayed + " changes replayed)");
+    }
+
+    /**
+     * Type-ahead search
+     *
+     * @param query        at least 3 letters or digits of a name, phone or email
+     * @param shopLocation the searching employee's shop (may be null)
+     */
+    public List<CustomerMatch> search(String query, String shopLocation, int limit) {
+        if (query == null) {
+            return List.of();
+        }
+        // Phones are indexed as digits only ("0712345678"), so search them the same way
+        List<Long> grams = new ArrayList<>(trigrams(isPhoneQuery(query) ? normalizePhone(query) : query));
+        if (grams.isEmpty() || !ready) {
+            return List.of();
+        }
+        limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        String rawQuery = isPhoneQuery(query) ? normalizePhone(query) : query.trim().toLowerCase();
+
+        lock.readLock().lock();
+        try {
+            return index.search(grams, rawQuery, shopLocation, limit, scratchFor(index.size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Add or refresh a user once the current transaction commits.
+     * Non-customers are removed from the index.
+     */
+    public void indexAfterCommit(User user) {
+        long id = user.getId();
+        boolean customer = user.isCustomer();
+        String username = user.getUsername();
+        String fullName = user.getFullName();
+        String phone = user.getPhone();
+        String email = user.getEmail();
+
+        TransactionHooks.afterCommit(() -> apply(target -> {
+            long shops = target.remove(id);
+            if (customer) {
+                target.add(id, username, fullName, phone, email, shops);
+            }
+        }));
+    }
+
+    public void removeAfterCommit(Long userId) {
+        TransactionHooks.afterCommit(() -> apply(target -> target.remove(userId)));
+    }
+
+    /**
+     * Remember that a customer has bought at a shop (for ranking)
+     */
+    public void recordShopVisit(String username, String shopLocation) {
+        apply(target -> target.recordShop(username, shopLocation));
+    }
+
+    // Changes are idempotent, so replaying one the new index already has is harmless
+    private void apply(Consumer<Index> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void compactIfNeeded() {
+        if (index.size() > 1000 && index.deadCount() > index.size() * MAX_DEAD_FRACTION) {
+            index = index.compact();
+        }
+    }
+
+    private int[] scratchFor(int size) {
+        int[] counts = scratch.get();
+        if (counts.length < size) {
+            counts = new int[Math.max(size, counts.length * 2)];
+            scratch.set(counts);
+        }
+        return counts;
+    }
+
+    // =======================================================================
+    // TRIGRAMS
+    // =======================================================================
+
+    /**
+     * Lowercase the text, split it into words of letters/digits and cut each
+     * word (with a leading space, so prefixes score higher) into trigrams
+     */
+    static Set<Long> trigrams(String text) {
+        Set<Long> grams = new HashSet<>();
+        if (text == null) {
+            return grams;
+        }
+        StringBuilder word = new StringBuilder(" ");
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? Character.toLowerCase(text.charAt(i)) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+            } else if (word.length() > 1) {
+                addWord(word, grams);
+                word.setLength(1);
+            }
+        }
+        return grams;
+    }
+
+    private static void addWord(CharSequence word, Set<Long> grams) {
+        for (int i = 0; i + 3 <= word.length(); i++) {
+            grams.add(((long) word.charAt(i) << 32) | ((long) word.charAt(i + 1) << 16) | word.charAt(i + 2));
+        }
+    }
+
+    /**
+     * A query made only of digits and phone punctuation, e.g. "+254 712 345678" or "0712-345-678"
+     */
+    static boolean isPhoneQuery(String query) {
+        int digits = 0;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (Character.isDigit(c)) {
+                digits++;
+            } else if (" +-().".indexOf(c) < 0) {
+                return false;
+            }
+        }
+        return digits >= 3;
+    }
+
+    /**
+     * Digits only, with the Kenyan country code swapped for a leading 0
+     * so "+254 712 345678" and "0712345678" match
+     */
+    static String normalizePhone(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        String digits = phone.replaceAll("[^0-9]", "");
+        if (digits.startsWith("254") && digits.length() > 9) {
+            digits = "0" + digits.substring(3);
+        }
+        return digits;
+    }
+
+    // =======================================================================
+    // INDEX (not thread-safe - guarded by the service's lock)
+    // =======================================================================
+
+    private static final class Index {
+
+        private long[] userIds = new long[1024];
+        private String[] usernames = new String[1024];
+        private String[] fullNames = new String[1024];
+        private String[] phones = new String[1024];
+        private String[] emails = new String[1024];
+        private long[] shopMasks = new long[1024];
+        private final BitSet dead = new BitSet();
+        private int size;
+
+        private final Map<Long, IntList> postings = new HashMap<>();
+        private final Map<Long, Integer> docByUserId = new HashMap<>();
+        private final Map<String, Integer> docByUsername = new HashMap<>();
+        private final Map<String, Integer> shopBits = new HashMap<>();
+
+        void add(long userId, String username, String fullName, String phone, String email, long shops) {
+            if (size == userIds.length) {
+                grow();
+            }
+            int doc = size++;
+            userIds[doc] = userId;
+            usernames[doc] = username;
+            fullNames[doc] = fullName;
+            phones[doc] = phone;
+            emails[doc] = email;
+            shopMasks[doc] = shops;
+            docByUserId.put(userId, doc);
+            docByUsername.put(username, doc);
+
+            Set<Long> grams = trigrams(fullName);
+            grams.addAll(trigrams(normalizePhone(phone)));
+            grams.addAll(trigrams(email));
+            grams.addAll(trigrams(username));
+            for (Long gram : grams) {
+                postings.computeIfAbsent(gram, g -> new IntList()).add(doc);
+            }
+        }
+
+        /**
+         * Mark a user's entry as stale; returns its shop mask so it can be carried over
+         */
+        long remove(long userId) {
+            Integer doc = docByUserId.remove(userId);
+            if (doc == null) {
+                return 0L;
+            }
+            dead.set(doc);
+            docByUsername.remove(usernames[doc], doc);
+            return shopMasks[doc];
+        }
+
+        void recordShop(String username, String shopLocation) {
+            Integer doc = docByUsername.get(username);
+            if (doc != null && shopLocation != null) {
+                shopMasks[doc] |= shopBit(shopLocation, true);
+            }
+        }
+
+        List<CustomerMatch> search(List<Long> grams, String rawQuery, String shopLocation, int limit, int[] counts) {
+            List<IntList> lists = new ArrayList<>(grams.size());
+            for (Long gram : grams) {
+                IntList list = postings.get(gram);
+                if (list != null) {
+                    lists.add(list);
+                }
+            }
+            int needed = (int) Math.ceil(grams.size() * MIN_MATCH_FRACTION);
+            if (lists.size() < needed) {
+                return List.of();
+            }
+
+            // Count how many query trigrams each customer has
+            IntList touched = new IntList();
+            for (IntList list : lists) {
+                for (int i = 0; i < list.size; i++) {
+                    int doc = list.values[i];
+                    if (counts[doc]++ == 0) {
+                        touched.add(doc);
+                    }
+                }
+            }
+
+            long shopBit = shopLocation == null ? 0L : shopBit(shopLocation, false);
+            String phoneQuery = normalizePhone(rawQuery);
+            PriorityQueue<double[]> best = new PriorityQueue<>(Comparator.comparingDouble(entry -> entry[0]));
+
+            for (int i = 0; i < touched.size; i++) {
+                int doc = touched.values[i];
+                int matched = counts[doc];
+                counts[doc] = 0;
+                if (matched < needed || dead.get(doc)) {
+                    continue;
+                }
+                double score = (double) matched / grams.size();
+                if ((shopMasks[doc] & shopBit) != 0) {
+                    score += SHOP_BONUS;
+                }
+                if (containsExact(doc, rawQuery, phoneQuery)) {
+                    score += EXACT_BONUS;
+                }
+                if (best.size() < limit) {
+                    best.add(new double[] { score, doc });
+                } else if (score > best.peek()[0]) {
+                    best.poll();
+                    best.add(new double[] { score, doc });
+                }
+            }
+
+            List<CustomerMatch> results = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                double[] entry = best.poll();
+                int doc = (int) entry[1];
+                results.add(CustomerMatch.builder()
+                        .id(userIds[doc])
+                        .username(usernames[doc])
+                        .fullName(fullNames[doc])
+                        .phone(phones[doc])
+                        .email(emails[doc])
+                        .seenAtShop((shopMasks[doc] & shopBit) != 0)
+                        .score(entry[0])
+                        .build());
+            }
+            Collections.reverse(results);
+            return results;
+        }
+
+        private boolean containsExact(int doc, String rawQuery, String phoneQuery) {
+            return (fullNames[doc] != null && fullNames[doc].toLowerCase().contains(rawQuery))
+                || (emails[doc] != null && emails[doc].toLowerCase().contains(rawQuery))
+                || (!phoneQuery.isEmpty() && phones[doc] != null && normalizePhone(phones[doc]).contains(phoneQuery));
+        }
+
+        private long shopBit(String shopLocation, boolean create) {
+            String key = shopLocation.trim().toLowerCase();
+            Integer bit = shopBits.get(key);
+            if (bit == null) {
+                if (!create || shopBits.size() >= 64) {
+                    return 0L;
+                }
+                bit = shopBits.size();
+                shopBits.put(key, bit);
+            }
+            return 1L << bit;
+        }
+
+        Index compact() {
+            Index fresh = new Index();
+            fresh.shopBits.putAll(shopBits);
+            for (int doc = 0; doc < size; doc++) {
+                if (!dead.get(doc)) {
+                    fresh.add(userIds[doc], usernames[doc], fullNames[doc], phones[doc], emails[doc], shopMasks[doc]);
+                }
+            }
+            return fresh;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int deadCount() {
+            return dead.cardinality();
+        }
+
+        int liveCount() {
+            return size - deadCount();
+        }
+
+        private void grow() {
+            int capacity = userIds.length * 2;
+            userIds = Arrays.copyOf(userIds, capacity);
+            usernames = Arrays.copyOf(usernames, capacity);
+            fullNames = Arrays.copyOf(fullNames, capacity);
+            phones = Arrays.copyOf(phones, capacity);
+            emails = Arrays.copyOf(emails, capacity);
+            shopMasks = Arrays.copyOf(shopMasks, capacity);
+        }
+    }
+
+    // Growable int array - avoids boxing millions of Integers
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.goldcosmetics.service;
+
+import com.goldcosmetics.dto.DashboardView;
+import com.goldcosmetics.dto.DashboardViewer;
+import com.goldcosmetics.dto.WidgetStats;
+import com.goldcosmetics.dto.WidgetTiming;
+import com.goldcosmetics.model.Role;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Builds the dashboard page out of widgets.
+ *
+ * All widgets of a page are started at once on a small, bounded thread pool,
+ * so the page takes as long as its slowest widget instead of the sum of all
+ * of them. Each widget has its own time limit; one that is too slow or fails
+ * shows its last cached value, or its fallback, and the query keeps running
+ * to fill the cache for the next page.
+ *
+ * Results are cached for a few seconds per role, per role and shop, or per
+ * user (see DashboardWidget.Scope). When many people open the dashboard at
+ * the same moment only one query per widget and scope runs; the others wait
+ * for that one.
+ */
+@Service
+public class DashboardComposer {
+
+    @Autowired
+    private List<DashboardWidget> widgets;
+
+    @Autowired
+    private UserShopCache userShopCache;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${goldcosmetics.dashboard.widgets.threads:8}")
+    private int threads;
+
+    // Widget loads waiting for a thread; past this the fallback is shown at once
+    @Value("${goldcosmetics.dashboard.widgets.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${goldcosmetics.dashboard.widgets.timeout-ms:300}")
+    private long defaultTimeoutMs;
+
+    @Value("${goldcosmetics.dashboard.widgets.cache-ttl-seconds:10}")
+    private long defaultCacheTtlSeconds;
+
+    // Expired entries are cleared out once the cache grows past this
+    @Value("${goldcosmetics.dashboard.widgets.max-cache-entries:10000}")
+    private int maxCacheEntries;
+
+    private final Map<Role, List<Slot>> layouts = new EnumMap<>(Role.class);
+    private final Map<String, WidgetMetrics> metrics = new LinkedHashMap<>();
+    private final Map<CacheKey, Cached> cache = new ConcurrentHashMap<>();
+    private final Map<CacheKey, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() {
+        Map<String, Slot> byName = new LinkedHashMap<>();
+        for (DashboardWidget widget : widgets) {
+            long timeoutMs = widget.getTimeout() != null ? widget.getTimeout().toMillis() : defaultTimeoutMs;
+            long ttlMs = widget.getCacheTtl() != null ? widget.getCacheTtl().toMillis()
+                                                      : Duration.ofSeconds(defaultCacheTtlSeconds).toMillis();
+
+            // e.g. goldcosmetics.dashboard.widget.shopStaff.timeout-ms=500
+            String prefix = "goldcosmetics.dashboard.widget." + widget.getName() + ".";
+            timeoutMs = environment.getProperty(prefix + "timeout-ms", Long.class, timeoutMs);
+            ttlMs = environment.getProperty(prefix + "cache-ttl-ms", Long.class, ttlMs);
+
+            WidgetMetrics widgetMetrics = new WidgetMetrics();
+            metrics.put(widget.getName(), widgetMetrics);
+            byName.put(widget.getName(), new Slot(widget, TimeUnit.MILLISECONDS.toNanos(timeoutMs),
+                                                  TimeUnit.MILLISECONDS.toNanos(ttlMs), widgetMetrics));
+        }
+
+        // e.g. goldcosmetics.dashboard.layout.employee=shopStaff,todayActivity
+        for (Role role : Role.values()) {
+            String names = environment.getProperty("goldcosmetics.dashboard.layout." + role.name().toLowerCase(), "");
+            List<Slot> layout = new ArrayList<>();
+            for (String name : names.split(",")) {
+                if (name.isBlank()) {
+                    continue;
+                }
+                Slot slot = byName.get(name.trim());
+                if (slot == null) {
+                    throw new IllegalStateException("Unknown dashboard widget '" + name.trim()
+                                                    + "' for " + role + " - known widgets: " + byName.keySet());
+                }
+                layout.add(slot);
+            }
+            layouts.put(role, List.copyOf(layout));
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "dashboard-widget-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        System.out.println("✅ Dashboard widgets ready: " + layouts);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Fill in every widget of the role's dashboard
+     */
+    public DashboardView compose(String username, Role role) {
+        long startedAt = System.nanoTime();
+        List<Slot> layout = layouts.getOrDefault(role, List.of());
+        DashboardViewer viewer = new DashboardViewer(username, role, findShop(username, layout));
+
+        // Start every widget before waiting for any of them
+        List<CacheKey> keys = new ArrayList<>(layout.size());
+        List<CompletableFuture<Object>> results = new ArrayList<>(layout.size());
+        boolean[] fromCache = new boolean[layout.size()];
+        for (int i = 0; i < layout.size(); i++) {
+            Slot slot = layout.get(i);
+            slot.metrics().requests.increment();
+
+            CacheKey key = keyFor(slot.widget(), viewer);
+            keys.add(key);
+            Cached cached = cache.get(key);
+            if (cached != null && cached.isFresh(startedAt)) {
+                slot.metrics().cacheHits.increment();
+                fromCache[i] = true;
+                results.add(CompletableFuture.completedFuture(cached.value()));
+            } else {
+                results.add(load(slot, key, viewer));
+            }
+        }
+
+        // Every limit counts from the start of the page, so waiting on one widget
+        // does not eat into the time of the next
+        Map<String, Object> values = new LinkedHashMap<>();
+        List<WidgetTiming> timings = new ArrayList<>(layout.size());
+        for (int i = 0; i < layout.size(); i++) {
+            Slot slot = layout.get(i);
+            String source = fromCache[i] ? "cache" : "loaded";
+            Object value;
+            try {
+                long remaining = startedAt + slot.timeoutNanos() - System.nanoTime();
+                value = results.get(i).get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                slot.metrics().timeouts.increment();
+                source = "timeout";
+                value = fallbackFor(slot, keys.get(i));
+            } catch (ExecutionException e) {
+                source = e.getCause() instanceof RejectedExecutionException ? "rejected" : "error";
+                value = fallbackFor(slot, keys.get(i));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                source = "timeout";
+                value = fallbackFor(slot, keys.get(i));
+            }
+            values.put(slot.widget().getName(), value);
+            timings.add(new WidgetTiming(slot.widget().getName(), source, millisSince(startedAt)));
+        }
+
+        return new DashboardView(values, timings, millisSince(startedAt));
+    }
+
+    /**
+     * Numbers for every widget since startup
+     */
+    public List<WidgetStats> getStats() {
+        List<WidgetStats> stats = new ArrayList<>();
+        for (List<Slot> layout : layouts.values()) {
+            for (Slot slot : layout) {
+                if (stats.stream().noneMatch(s -> s.getWidget().equals(slot.widget().getName()))) {
+                    stats.add(slot.metrics().snapshot(slot));
+                }
+            }
+        }
+        return stats;
+    }
+
+    // =======================================================================
+    // LOADING
+    // =======================================================================
+
+    private CompletableFuture<Object> load(Slot slot, CacheKey key, DashboardViewer viewer) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = loading.putIfAbsent(key, mine);
+        if (running != null) {
+            return running;     // Someone else is already loading this one
+        }
+
+        try {
+            executor.execute(() -> {
+                long loadStart = System.nanoTime();
+                try {
+                    Object value = slot.widget().load(viewer);
+                    slot.metrics().recordLoad(System.nanoTime() - loadStart);
+                    store(key, new Cached(value, System.nanoTime() + slot.ttlNanos()));
+                    mine.complete(value);
+                } catch (Throwable e) {
+                    slot.metrics().failures.increment();
+                    System.out.println("⚠️ Dashboard widget " + slot.widget().getName() + " failed: " + e.getMessage());
+                    mine.completeExceptionally(e);
+                } finally {
+                    loading.remove(key, mine);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            slot.metrics().rejected.increment();
+            loading.remove(key, mine);
+            mine.completeExceptionally(e);
+        }
+        return mine;
+    }
+
+    // A slightly old value beats an empty box
+    private Object fallbackFor(Slot slot, CacheKey key) {
+        Cached stale = cache.get(key);
+        return stale != null ? stale.value() : slot.widget().getFallback();
+    }
+
+    private void store(CacheKey key, Cached value) {
+        cache.put(key, value);
+        if (cache.size() > maxCacheEntries) {
+            long now = System.nanoTime();
+            cache.values().removeIf(cached -> !cached.isFresh(now));
+        }
+    }
+
+    private CacheKey keyFor(DashboardWidget widget, DashboardViewer viewer) {
+        String scopeValue = switch (widget.getScope()) {
+            case ROLE -> "";
+            case SHOP -> String.valueOf(viewer.getShopLocation());
+            case USER -> viewer.getUsername();
+        };
+        return new CacheKey(widget.getName(), viewer.getRole(), scopeValue);
+    }
+
+    /**
+     * The viewer's shop, only when a widget on the page needs it. Kept for a
+     * minute so a dashboard refresh does not cost a user lookup.
+     */
+    private String findShop(String username, List<Slot> layout) {
+        if (layout.stream().noneMatch(slot -> slot.widget().getScope() == DashboardWidget.Scope.SHOP)) {
+            return null;
+        }
+        return userShopCache.getShop(username);
+    }
+
+    private static double millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000.0;
+    }
+
+    // =======================================================================
+    // SMALL TYPES
+    // =======================================================================
+
+    private record Slot(DashboardWidget widget, long timeoutNanos, long ttlNanos, WidgetMetrics metrics) { }
+
+    private record CacheKey(String widget, Role role, String scopeValue) { }
+
+    private record Cached(Object value, long expiresAtNanos) {
+        boolean isFresh(long nowNanos) {
+            return nowNanos - expiresAtNanos < 0;
+        }
+    }
+
+    private static class WidgetMetrics {
+        final LongAdder requests = new LongAdder();
+        final LongAdder cacheHits = new LongAdder();
+        final LongAdder loads = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder loadNanosTotal = new LongAdder();
+        final AtomicLong maxLoadNanos = new AtomicLong();
+        volatile long lastLoadNanos;
+
+        void recordLoad(long nanos) {
+            loads.increment();
+            loadNanosTotal.add(nanos);
+            maxLoadNanos.accumulateAndGet(nanos, Math::max);
+            lastLoadNanos = nanos;
+        }
+
+        WidgetStats snapshot(Slot slot) {
+            long loadCount = loads.sum();
+            return WidgetStats.builder()
+                    .widget(slot.widget().getName())
+                    .scope(slot.widget().getScope().name())
+                    .timeoutMs(TimeUnit.NANOSECONDS.toMillis(slot.timeoutNanos()))
+                    .cacheTtlMs(TimeUnit.NANOSECONDS.toMillis(slot.ttlNanos()))
+                    .requests(requests.sum())
+                    .cacheHits(cacheHits.sum())
+                    .loads(loadCount)
+                    .timeouts(timeouts.sum())
+                    .failures(failures.sum())
+                    .rejected(rejected.sum())
+                    .avgLoadMs(loadCount == 0 ? 0 : loadNanosTotal.sum() / (double) loadCount / 1_000_000.0)
+                    .maxLoadMs(maxLoadNanos.get() / 1_000_000.0)
+                    .lastLoadMs(lastLoadNanos / 1_000_000.0)
+                    .build();
+        }
+    }
+}
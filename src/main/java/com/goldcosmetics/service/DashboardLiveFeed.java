@@ -0,0 +1,590 @@
+package com.goldcosmetics.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goldcosmetics.dto.DashboardActivity;
+import com.goldcosmetics.dto.DashboardDelta;
+import com.goldcosmetics.model.Role;
+import com.goldcosmetics.model.UserEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes small JSON deltas to open admin and employee dashboards (Server-Sent Events).
+ *
+ * One publisher thread collects user events from the journal for a short
+ * window, turns them into one delta for admins and one per shop for employees
+ * (employees only see the names of their own shop's customers), and converts
+ * each to JSON once, whatever the number of dashboards.
+ *
+ * Each dashboard has its own small outbox. When it is full, new deltas are
+ * merged into the last one waiting, so a slow connection gets fewer, bigger
+ * updates instead of a growing queue. Outboxes are written with non-blocking
+ * servlet output by a couple of writer threads: a write only goes out while the
+ * connection can take it, otherwise the dashboard waits for the container to
+ * say it can write again - no thread is ever parked on a slow browser. One that
+ * takes nothing for stall-timeout-seconds is closed (the browser reconnects by
+ * itself).
+ *
+ * Message ids are "sequence@instance". A browser that reconnects sends the last
+ * one back (Last-Event-ID) and the first message it gets covers everything it
+ * missed; if that cannot be worked out (another instance, too far behind) the
+ * message asks the page to reload instead.
+ */
+@Service
+public class DashboardLiveFeed {
+
+    private static final int MAX_RECENT = 10;
+    // A reconnect that missed more events than this reloads the page instead
+    private static final int MAX_REPLAY = 10_000;
+    private static final byte[] KEEP_ALIVE = ": keep-alive\n\n".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private UserEventJournal userEventJournal;
+
+    @Autowired
+    private UserCountersView userCountersView;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // How long to collect events before pushing them out together
+    @Value("${goldcosmetics.dashboard.live.coalesce-ms:500}")
+    private long coalesceMs;
+
+    @Value("${goldcosmetics.dashboard.live.heartbeat-seconds:20}")
+    private long heartbeatSeconds;
+
+    // Drop a dashboard that has not taken anything for this long
+    @Value("${goldcosmetics.dashboard.live.stall-timeout-seconds:30}")
+    private long stallTimeoutSeconds;
+
+    // Close the stream after this long; the browser reconnects straight away
+    @Value("${goldcosmetics.dashboard.live.connection-timeout-minutes:30}")
+    private long connectionTimeoutMinutes;
+
+    @Value("${goldcosmetics.dashboard.live.max-clients:2000}")
+    private int maxClients;
+
+    // Deltas waiting for one dashboard before newer ones are merged into the last
+    @Value("${goldcosmetics.dashboard.live.client-queue-size:4}")
+    private int clientQueueSize;
+
+    // Writes never block, so a couple of threads serve every dashboard
+    @Value("${goldcosmetics.dashboard.live.writer-threads:2}")
+    private int writerThreads;
+
+    private final Queue<UserEvent> incoming = new ConcurrentLinkedQueue<>();
+    private final Set<LiveClient> clients = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger clientCount = new AtomicInteger();
+
+    // Held while publishing and while a new dashboard is set up, so it gets every event exactly once
+    private final Object publishLock = new Object();
+    // Last journal sequence handed to the dashboards (guarded by publishLock)
+    private long publishedThrough;
+
+    private String instanceId;
+    private ExecutorService writers;
+    private volatile boolean running;
+    private Thread publisher;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        writers = Executors.newFixedThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-writer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Runs inside the journal append - only queue the event here
+        userEventJournal.subscribe(event -> {
+            switch (event.type()) {
+                case REGISTERED, LOGGED_IN, ROLE_CHANGED -> incoming.offer(event);
+                default -> { }
+            }
+        });
+        instanceId = userEventJournal.getInstanceId();
+        synchronized (publishLock) {
+            publishedThrough = userEventJournal.getLastSequence();
+        }
+
+        running = true;
+        publisher = new Thread(this::publishLoop, "dashboard-publisher");
+        publisher.setDaemon(true);
+        publisher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (publisher != null) {
+            publisher.interrupt();
+            publisher.join(5000);
+        }
+        clients.forEach(LiveClient::close);
+        writers.shutdown();
+    }
+
+    /**
+     * Turn this request into a live stream for a dashboard. Admins see every
+     * registration, login and role change plus user totals; employees see the
+     * customer activity of their own shop.
+     *
+     * @param shopLocation the employee's shop (ignored for admins)
+     * @param lastEventId  the Last-Event-ID header of a reconnecting browser, or null
+     * @throws IllegalStateException if too many dashboards are already connected
+     */
+    public void connect(Role audience, String shopLocation, String lastEventId,
+                        HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (audience != Role.ADMIN && audience != Role.EMPLOYEE) {
+            throw new IllegalArgumentException("No live dashboard for role " + audience);
+        }
+        if (clientCount.incrementAndGet() > maxClients) {
+            clientCount.decrementAndGet();
+            throw new IllegalStateException("Too many live dashboards connected");
+        }
+
+        LiveClient client;
+        try {
+            response.setContentType("text/event-stream");
+            response.setCharacterEncoding("UTF-8");
+            response.setHeader("Cache-Control", "no-cache");
+            AsyncContext async = request.startAsync();
+            async.setTimeout(TimeUnit.MINUTES.toMillis(connectionTimeoutMinutes));
+            client = new LiveClient(async, response.getOutputStream(), audience,
+                    audience == Role.ADMIN ? null : shopLocation);
+            async.addListener(client);
+            // Nothing is written until the container calls onWritePossible, after this request thread is done
+            client.out.setWriteListener(client);
+        } catch (IOException | RuntimeException e) {
+            clientCount.decrementAndGet();
+            throw e;
+        }
+
+        synchronized (publishLock) {
+            DashboardDelta hello = hello(client, lastEventId);
+            clients.add(client);
+            client.offer(hello, eventBytes(hello));
+        }
+    }
+
+    public int getConnectedCount() {
+        return clientCount.get();
+    }
+
+    /**
+     * First message of a stream: where it starts, plus (after a reconnect)
+     * everything the browser missed, and the current totals for admins
+     */
+    private DashboardDelta hello(LiveClient client, String lastEventId) {
+        DashboardDelta hello = new DashboardDelta();
+        if (lastEventId != null) {
+            long after = resumePoint(lastEventId);
+            if (after < 0 || after > publishedThrough || publishedThrough - after > MAX_REPLAY) {
+                hello.setResync(true);
+            } else {
+                UserEventJournal.Cursor cursor = new UserEventJournal.Cursor(after);
+                replay:
+                while (true) {
+                    List<UserEvent> events = userEventJournal.read(cursor, 1000);
+                    if (events.isEmpty()) {
+                        break;
+                    }
+                    for (UserEvent event : events) {
+                        if (event.sequence() > publishedThrough) {
+                            break replay;
+                        }
+                        if (client.audience == Role.ADMIN) {
+                            add(hello, event, true, true);
+                        } else {
+                            addForEmployees(hello, event, client.shopLocation);
+                        }
+                    }
+                }
+            }
+        }
+        hello.setFromSequence(publishedThrough);
+        hello.setToSequence(publishedThrough);
+        if (client.audience == Role.ADMIN) {
+            hello.setTotals(currentTotals());
+        }
+        return hello;
+    }
+
+    // The sequence in a "sequence@instance" message id, or -1 if it is not one of ours
+    private long resumePoint(String lastEventId) {
+        int at = lastEventId.indexOf('@');
+        if (at < 0 || !lastEventId.substring(at + 1).equals(instanceId)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(0, at));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void publishLoop() {
+        while (running) {
+            try {
+                Thread.sleep(coalesceMs);
+                publish();
+                keepAliveAndDropStalled();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                System.out.println("⚠️ Dashboard publish failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void publish() {
+        synchronized (publishLock) {
+            if (incoming.isEmpty()) {
+                return;
+            }
+            DashboardDelta forAdmins = new DashboardDelta();
+            List<UserEvent> events = new ArrayList<>();
+            UserEvent event;
+            while ((event = incoming.poll()) != null) {
+                // Already covered by the starting point (queued while starting up)
+                if (event.sequence() <= publishedThrough) {
+                    continue;
+                }
+                publishedThrough = event.sequence();
+                add(forAdmins, event, true, true);
+                events.add(event);
+            }
+            if (clients.isEmpty()) {
+                return;
+            }
+
+            Outgoing toAdmins = null;
+            if (forAdmins.getToSequence() > 0) {
+                forAdmins.setTotals(currentTotals());
+                toAdmins = new Outgoing(forAdmins, eventBytes(forAdmins));
+            }
+            // Built once per shop that has a dashboard open (null key = employees without a shop)
+            Map<String, Outgoing> toShops = new HashMap<>();
+            for (LiveClient client : clients) {
+                Outgoing outgoing;
+                if (client.audience == Role.ADMIN) {
+                    outgoing = toAdmins;
+                } else if (toShops.containsKey(client.shopLocation)) {
+                    outgoing = toShops.get(client.shopLocation);
+                } else {
+                    DashboardDelta forShop = new DashboardDelta();
+                    events.forEach(shopEvent -> addForEmployees(forShop, shopEvent, client.shopLocation));
+                    outgoing = forShop.getToSequence() > 0 ? new Outgoing(forShop, eventBytes(forShop)) : null;
+                    toShops.put(client.shopLocation, outgoing);
+                }
+                if (outgoing != null) {
+                    client.offer(outgoing.delta(), outgoing.bytes());
+                }
+            }
+        }
+    }
+
+    private void keepAliveAndDropStalled() {
+        long now = System.currentTimeMillis();
+        long heartbeatMs = TimeUnit.SECONDS.toMillis(heartbeatSeconds);
+        long stallMs = TimeUnit.SECONDS.toMillis(stallTimeoutSeconds);
+        for (LiveClient client : clients) {
+            if (client.isStalled(now, stallMs)) {
+                System.out.println("🐢 Dropping stalled live dashboard (" + client.audience + ")");
+                client.close();
+            } else {
+                client.keepAlive(now, heartbeatMs);
+            }
+        }
+    }
+
+    private Map<String, Long> currentTotals() {
+        Map<String, Long> totals = new LinkedHashMap<>();
+        totals.put("ALL", userCountersView.getTotalUsers());
+        for (Role role : Role.values()) {
+            totals.put(role.name(), userCountersView.getCount(role));
+        }
+        return totals;
+    }
+
+    /**
+     * Employees see their own shop's customers by name. Customers without a
+     * shop only add to the counts; other shops' customers are left out.
+     */
+    private static void addForEmployees(DashboardDelta delta, UserEvent event, String shopLocation) {
+        if (event.shopLocation() == null) {
+            add(delta, event, false, false);
+        } else if (event.shopLocation().equals(shopLocation)) {
+            add(delta, event, false, true);
+        }
+    }
+
+    private static void add(DashboardDelta delta, UserEvent event, boolean forAdmins, boolean named) {
+        boolean customer = event.role() == Role.CUSTOMER;
+        switch (event.type()) {
+            case REGISTERED -> {
+                if (customer) {
+                    delta.setNewCustomers(delta.getNewCustomers() + 1);
+                } else if (!forAdmins) {
+                    return;
+                }
+            }
+            case LOGGED_IN -> {
+                if (!customer && !forAdmins) {
+                    return;
+                }
+                delta.setLogins(delta.getLogins() + 1);
+            }
+            case ROLE_CHANGED -> {
+                if (!forAdmins) {
+                    return;
+                }
+                delta.setRoleChanges(delta.getRoleChanges() + 1);
+            }
+            default -> {
+                return;
+            }
+        }
+        if (delta.getFromSequence() == 0) {
+            delta.setFromSequence(event.sequence());
+        }
+        delta.setToSequence(event.sequence());
+        if (!named) {
+            return;
+        }
+        addRecent(delta.getRecent(), List.of(new DashboardActivity(event.type(), event.username(), event.role(),
+                event.shopLocation(), event.occurredAt())));
+    }
+
+    private static void addRecent(List<DashboardActivity> recent, List<DashboardActivity> more) {
+        recent.addAll(more);
+        if (recent.size() > MAX_RECENT) {
+            recent.subList(0, recent.size() - MAX_RECENT).clear();
+        }
+    }
+
+    /** Fold a newer delta into one that has not been sent yet */
+    private static DashboardDelta merge(DashboardDelta pending, DashboardDelta newer) {
+        if (pending == null) {
+            pending = new DashboardDelta();
+            pending.setFromSequence(newer.getFromSequence());
+        }
+        pending.setToSequence(newer.getToSequence());
+        pending.setNewCustomers(pending.getNewCustomers() + newer.getNewCustomers());
+        pending.setLogins(pending.getLogins() + newer.getLogins());
+        pending.setRoleChanges(pending.getRoleChanges() + newer.getRoleChanges());
+        if (newer.getTotals() != null) {
+            pending.setTotals(newer.getTotals());
+        }
+        if (newer.getResync() != null) {
+            pending.setResync(newer.getResync());
+        }
+        addRecent(pending.getRecent(), newer.getRecent());
+        return pending;
+    }
+
+    /** The delta as one complete SSE message */
+    private byte[] eventBytes(DashboardDelta delta) {
+        try {
+            return ("event: delta\n"
+                  + "id: " + delta.getToSequence() + "@" + instanceId + "\n"
+                  + "data: " + objectMapper.writeValueAsString(delta) + "\n\n").getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write dashboard delta", e);
+        }
+    }
+
+    /**
+     * One open dashboard: a bounded outbox, written whenever the connection can take more
+     */
+    private final class LiveClient implements WriteListener, AsyncListener {
+
+        final AsyncContext async;
+        final ServletOutputStream out;
+        final Role audience;
+        final String shopLocation;
+
+        // Guarded by this
+        private final Deque<Outgoing> outbox = new ArrayDeque<>();
+        private boolean writable;
+        private boolean scheduled;
+        private boolean flushPending;
+        private long blockedSince;
+        private long lastSentAt = System.currentTimeMillis();
+        private boolean closed;
+
+        LiveClient(AsyncContext async, ServletOutputStream out, Role audience, String shopLocation) {
+            this.async = async;
+            this.out = out;
+            this.audience = audience;
+            this.shopLocation = shopLocation;
+        }
+
+        /** The delta is shared between dashboards - never changed here, only copied when merging */
+        synchronized void offer(DashboardDelta delta, byte[] bytes) {
+            if (closed) {
+                return;
+            }
+            if (outbox.isEmpty() || outbox.size() < clientQueueSize || outbox.peekLast().delta == null) {
+                outbox.addLast(new Outgoing(delta, bytes));
+            } else {
+                Outgoing last = outbox.pollLast();
+                DashboardDelta own = last.bytes == null ? last.delta : merge(null, last.delta);
+                outbox.addLast(new Outgoing(merge(own, delta), null));
+            }
+            schedule();
+        }
+
+        synchronized void keepAlive(long now, long heartbeatMs) {
+            if (closed || !outbox.isEmpty() || blockedSince > 0 || now - lastSentAt < heartbeatMs) {
+                return;
+            }
+            outbox.addLast(new Outgoing(null, KEEP_ALIVE));
+            schedule();
+        }
+
+        synchronized boolean isStalled(long now, long stallMs) {
+            return !closed && blockedSince > 0 && now - blockedSince > stallMs;
+        }
+
+        /** Stop sending, end the stream and free the place. Never waits on the connection. */
+        void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                outbox.clear();
+            }
+            clients.remove(this);
+            clientCount.decrementAndGet();
+            try {
+                async.complete();
+            } catch (IllegalStateException e) {
+                // Already finished
+            }
+        }
+
+        // Called with this held
+        private void schedule() {
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+            try {
+                writers.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                scheduled = false;
+            }
+        }
+
+        /**
+         * Write what is waiting for as long as the connection takes it. When it
+         * does not, stop - the container calls onWritePossible when it does again.
+         */
+        private void drain() {
+            boolean failed = false;
+            synchronized (this) {
+                scheduled = false;
+                if (closed || !writable) {
+                    return;
+                }
+                try {
+                    while (out.isReady()) {
+                        blockedSince = 0;
+                        if (flushPending) {
+                            flushPending = false;
+                            out.flush();
+                            continue;
+                        }
+                        Outgoing next = outbox.pollFirst();
+                        if (next == null) {
+                            return;
+                        }
+                        out.write(next.bytes != null ? next.bytes : eventBytes(next.delta));
+                        lastSentAt = System.currentTimeMillis();
+                        flushPending = true;
+                    }
+                    if (blockedSince == 0) {
+                        blockedSince = System.currentTimeMillis();
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Browser went away (or the stream already ended)
+                    failed = true;
+                }
+            }
+            if (failed) {
+                close();
+            }
+        }
+
+        @Override
+        public void onWritePossible() {
+            synchronized (this) {
+                writable = true;
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            close();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    /**
+     * A message waiting to go out: a delta (bytes null once it has been merged
+     * into and needs writing again) or a keep-alive (delta null)
+     */
+    private record Outgoing(DashboardDelta delta, byte[] bytes) { }
+}
@@ -0,0 +1,44 @@
+package com.goldcosmetics.service;
+
+import com.goldcosmetics.dto.DashboardViewer;
+import lombok.Builder;
+import lombok.Getter;
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * One box on the dashboard. Widgets are beans; which roles show which widgets
+ * is set in application.properties (goldcosmetics.dashboard.layout.*).
+ *
+ * The loader runs on a DashboardComposer thread, not the request thread, so it
+ * gets everything it needs from the viewer and must return plain data
+ * (no lazy-loaded entities).
+ */
+@Getter
+@Builder
+public class DashboardWidget {
+
+    /**
+     * Who can share a cached result
+     */
+    public enum Scope {
+        ROLE,   // Everyone with the same role
+        SHOP,   // Everyone with the same role and shop
+        USER    // Only this user
+    }
+
+    private final String name;
+    private final Scope scope;
+    private final Function<DashboardViewer, Object> loader;
+
+    // Shown when the widget is too slow or fails and nothing older is cached
+    private final Object fallback;
+
+    // null = use the defaults from goldcosmetics.dashboard.widgets.*
+    private final Duration timeout;
+    private final Duration cacheTtl;
+
+    public Object load(DashboardViewer viewer) {
+        return loader.apply(viewer);
+    }
+}
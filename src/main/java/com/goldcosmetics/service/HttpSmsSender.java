@@ -0,0 +1,66 @@
+package com.goldcosmetics.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goldcosmetics.model.NotificationChannel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Sends SMS through an HTTP gateway: POST {"to": ..., "message": ...} as JSON.
+ *
+ * One shared HttpClient keeps its connections to the gateway alive between messages.
+ */
+@Component
+public class HttpSmsSender implements NotificationSender {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${goldcosmetics.notifications.sms.url:http://localhost:2526/sms}")
+    private String gatewayUrl;
+
+    @Value("${goldcosmetics.notifications.sms.api-key:}")
+    private String apiKey;
+
+    @Value("${goldcosmetics.notifications.sms.concurrency:4}")
+    private int concurrency;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    @Override
+    public NotificationChannel getChannel() {
+        return NotificationChannel.SMS;
+    }
+
+    @Override
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    @Override
+    public void send(String recipient, String subject, String body) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(gatewayUrl))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(
+                        objectMapper.writeValueAsBytes(Map.of("to", recipient, "message", body))));
+        if (!apiKey.isBlank()) {
+            request.header("Authorization", "Bearer " + apiKey);
+        }
+        HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("SMS gateway returned " + response.statusCode() + ": " + response.body());
+        }
+    }
+}
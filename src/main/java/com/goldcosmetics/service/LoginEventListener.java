@@ -0,0 +1,22 @@
+package com.goldcosmetics.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records every successful login (form login or remember-me).
+ * The database write happens in the background - see LoginRecorder.
+ */
+@Component
+public class LoginEventListener {
+
+    @Autowired
+    private LoginRecorder loginRecorder;
+
+    @EventListener
+    public void onLogin(AuthenticationSuccessEvent event) {
+        loginRecorder.record(event.getAuthentication().getName());
+    }
+}
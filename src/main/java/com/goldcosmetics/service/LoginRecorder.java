@@ -0,0 +1,119 @@
+package com.goldcosmetics.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves last-login times and LOGGED_IN events in the background.
+ *
+ * A login only puts (username, time) on a queue; a background thread saves
+ * what has piled up in one transaction. A burst of logins (shops opening in
+ * the morning) therefore costs a few batched writes instead of one database
+ * round trip on every login request.
+ */
+@Service
+public class LoginRecorder {
+
+    private static final long INITIAL_BACKOFF_MS = 200;
+    private static final long MAX_BACKOFF_MS = 10_000;
+
+    public record Login(String username, long loggedInAt) {
+    }
+
+    @Autowired
+    private UserService userService;
+
+    @Value("${goldcosmetics.logins.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${goldcosmetics.logins.batch-size:200}")
+    private int batchSize;
+
+    private BlockingQueue<Login> queue;
+    private volatile boolean running;
+    private Thread worker;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        worker = new Thread(this::recordLoop, "login-recorder");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(5000);
+        }
+
+        // One last try for what is still queued
+        List<Login> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            try {
+                userService.recordLogins(remaining);
+            } catch (RuntimeException e) {
+                System.out.println("⚠️ Lost " + remaining.size() + " login records on shutdown: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Remember a successful login
+     */
+    public void record(String username) {
+        Login login = new Login(username, System.currentTimeMillis());
+        if (!queue.offer(login)) {
+            // Falling far behind - save this one on the request thread rather than lose it
+            userService.recordLogins(List.of(login));
+        }
+    }
+
+    private void recordLoop() {
+        List<Login> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Login first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                saveWithRetry(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // Put the unsaved batch back for stop()
+                batch.forEach(queue::offer);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void saveWithRetry(List<Login> batch) throws InterruptedException {
+        long backoffMs = INITIAL_BACKOFF_MS;
+        while (true) {
+            try {
+                userService.recordLogins(batch);
+                return;
+            } catch (RuntimeException e) {
+                System.out.println("⚠️ Saving " + batch.size() + " logins failed: " + e.getMessage());
+            }
+            Thread.sleep(backoffMs);
+            backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        }
+    }
+}
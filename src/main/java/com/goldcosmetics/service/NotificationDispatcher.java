@@ -0,0 +1,321 @@
+package com.goldcosmetics.service;
+
+import com.goldcosmetics.model.NotificationChannel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the notifications queued in notification_outbox.
+ *
+ * A background thread works in three steps:
+ *   1. Claim a batch of due rows in a short transaction: FOR UPDATE SKIP LOCKED
+ *      (so several app instances never pick the same row) and mark them
+ *      IN_FLIGHT with a lease and a claim token.
+ *   2. Send them in parallel over each channel's pooled connections, outside
+ *      any transaction - no connection or row lock is held while a mail server
+ *      or SMS gateway is slow.
+ *   3. Record the results in a second short transaction, only for rows that
+ *      still carry this claim token.
+ *
+ * While a row is IN_FLIGHT its next_attempt_at is the end of the lease. If a
+ * dispatcher dies half-way, the lease runs out and the row is claimed again,
+ * so a notice is sent at least once (rarely twice), never lost. A failed
+ * message is retried later with exponential backoff, and marked FAILED after
+ * the last attempt.
+ */
+@Service
+public class NotificationDispatcher {
+
+    private static final long DB_RETRY_MS = 5_000;
+
+    // Due PENDING rows, plus IN_FLIGHT rows whose lease has run out. Counts the attempt up front,
+    // so a message that keeps killing its dispatcher still ends up FAILED.
+    private static final String CLAIM_SQL =
+            "update notification_outbox set status = 'IN_FLIGHT', attempts = attempts + 1, "
+          + "next_attempt_at = ?, claim_token = ? "
+          + "where id in (select id from notification_outbox "
+          + "where status in ('PENDING', 'IN_FLIGHT') and next_attempt_at <= ? "
+          + "order by next_attempt_at, id limit ? for update skip locked) "
+          + "returning id, channel, recipient, subject, body, attempts";
+
+    private static final String SENT_SQL =
+            "update notification_outbox set status = 'SENT', sent_at = ?, last_error = null, claim_token = null "
+          + "where id = ? and claim_token = ?";
+
+    private static final String RETRY_SQL =
+            "update notification_outbox set status = 'PENDING', next_attempt_at = ?, last_error = ?, claim_token = null "
+          + "where id = ? and claim_token = ?";
+
+    private static final String FAILED_SQL =
+            "update notification_outbox set status = 'FAILED', last_error = ?, claim_token = null "
+          + "where id = ? and claim_token = ?";
+
+    // attempts includes the one being made now
+    private record Claimed(long id, NotificationChannel channel, String recipient, String subject,
+                           String body, int attempts) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private List<NotificationSender> senders;
+
+    // false = only queue notifications (e.g. on a second instance that shouldn't send)
+    @Value("${goldcosmetics.notifications.dispatcher.enabled:true}")
+    private boolean enabled;
+
+    @Value("${goldcosmetics.notifications.batch-size:100}")
+    private int batchSize;
+
+    @Value("${goldcosmetics.notifications.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${goldcosmetics.notifications.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${goldcosmetics.notifications.initial-backoff-seconds:30}")
+    private long initialBackoffSeconds;
+
+    @Value("${goldcosmetics.notifications.max-backoff-minutes:60}")
+    private long maxBackoffMinutes;
+
+    // How long a claimed batch belongs to this dispatcher before another may take it over
+    @Value("${goldcosmetics.notifications.lease-seconds:300}")
+    private long leaseSeconds;
+
+    private final Map<NotificationChannel, NotificationSender> senderByChannel = new EnumMap<>(NotificationChannel.class);
+    private final Map<NotificationChannel, ExecutorService> pools = new EnumMap<>(NotificationChannel.class);
+
+    private final Object wakeUpLock = new Object();
+    private boolean wakeUpRequested;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        for (NotificationSender sender : senders) {
+            senderByChannel.put(sender.getChannel(), sender);
+            AtomicInteger threadNumber = new AtomicInteger();
+            String prefix = "notify-" + sender.getChannel().name().toLowerCase() + "-";
+            pools.put(sender.getChannel(), Executors.newFixedThreadPool(sender.getConcurrency(), runnable -> {
+                Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+
+        running = true;
+        worker = new Thread(this::dispatchLoop, "notification-dispatcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(5000);
+        }
+        pools.values().forEach(ExecutorService::shutdown);
+    }
+
+    /**
+     * Look at the outbox straight away once the current transaction commits
+     * instead of at the next poll
+     */
+    public void wakeUpAfterCommit() {
+        if (running) {
+            TransactionHooks.afterCommit(this::wakeUp);
+        }
+    }
+
+    private void wakeUp() {
+        synchronized (wakeUpLock) {
+            wakeUpRequested = true;
+            wakeUpLock.notifyAll();
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                // A full batch means there is probably more waiting - go again straight away
+                if (dispatchBatch() < batchSize) {
+                    synchronized (wakeUpLock) {
+                        if (!wakeUpRequested) {
+                            wakeUpLock.wait(pollIntervalMs);
+                        }
+                        wakeUpRequested = false;
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                System.out.println("⚠️ Notification dispatch failed, retrying in " + DB_RETRY_MS / 1000 + " s: "
+                                 + e.getMessage());
+                try {
+                    Thread.sleep(DB_RETRY_MS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Claim, send and record one batch
+     */
+    private int dispatchBatch() {
+        String claimToken = UUID.randomUUID().toString();
+        long leaseMs = leaseSeconds * 1000;
+        long claimedAt = System.currentTimeMillis();
+
+        // STEP 1: Claim - commits straight away, so no lock is held while sending
+        List<Claimed> batch = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            return jdbcTemplate.query(CLAIM_SQL,
+                    (rs, rowNum) -> new Claimed(rs.getLong("id"),
+                            NotificationChannel.valueOf(rs.getString("channel")),
+                            rs.getString("recipient"), rs.getString("subject"),
+                            rs.getString("body"), rs.getInt("attempts")),
+                    Timestamp.valueOf(now.plusNanos(leaseMs * 1_000_000)), claimToken,
+                    Timestamp.valueOf(now), batchSize);
+        });
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        // STEP 2: Send - stop waiting well before the lease runs out
+        List<Throwable> errors = deliver(batch, claimedAt + leaseMs * 3 / 4);
+
+        // STEP 3: Record
+        transactionTemplate.executeWithoutResult(status -> recordResults(batch, errors, claimToken));
+        return batch.size();
+    }
+
+    /**
+     * Returns the error for each message, or null where it was sent. Sends still
+     * running at the deadline are cancelled and count as failed.
+     */
+    private List<Throwable> deliver(List<Claimed> batch, long deadline) {
+        List<Future<?>> futures = new ArrayList<>(batch.size());
+        for (Claimed message : batch) {
+            NotificationSender sender = senderByChannel.get(message.channel());
+            if (sender == null || message.attempts() > maxAttempts) {
+                futures.add(null);
+                continue;
+            }
+            futures.add(pools.get(message.channel()).submit(() -> {
+                sender.send(message.recipient(), message.subject(), message.body());
+                return null;
+            }));
+        }
+
+        List<Throwable> errors = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Future<?> future = futures.get(i);
+            if (future == null) {
+                Claimed message = batch.get(i);
+                errors.add(message.attempts() > maxAttempts
+                        ? new IllegalStateException("Lease ran out on the last attempt")
+                        : new IllegalStateException("No sender for " + message.channel()));
+                continue;
+            }
+            try {
+                future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                errors.add(null);
+            } catch (ExecutionException e) {
+                errors.add(e.getCause());
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                errors.add(e);
+            } catch (InterruptedException e) {
+                // Shutting down - the rest go back to PENDING with a retry
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                errors.add(e);
+            }
+        }
+        return errors;
+    }
+
+    // A row another dispatcher took over after our lease ran out no longer has our token and is left alone
+    private void recordResults(List<Claimed> batch, List<Throwable> errors, String claimToken) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> sent = new ArrayList<>();
+        List<Object[]> retries = new ArrayList<>();
+        List<Object[]> failed = new ArrayList<>();
+
+        for (int i = 0; i < batch.size(); i++) {
+            Claimed message = batch.get(i);
+            Throwable error = errors.get(i);
+            if (error == null) {
+                sent.add(new Object[] {Timestamp.valueOf(now), message.id(), claimToken});
+                continue;
+            }
+            String reason = describe(error);
+            if (message.attempts() >= maxAttempts) {
+                System.out.println("❌ Giving up on " + message.channel() + " to " + message.recipient() + ": " + reason);
+                failed.add(new Object[] {reason, message.id(), claimToken});
+            } else {
+                long delayMs = backoffMillis(message.attempts() - 1);
+                retries.add(new Object[] {Timestamp.valueOf(now.plusNanos(delayMs * 1_000_000)),
+                                          reason, message.id(), claimToken});
+            }
+        }
+
+        if (!sent.isEmpty()) {
+            jdbcTemplate.batchUpdate(SENT_SQL, sent);
+        }
+        if (!retries.isEmpty()) {
+            jdbcTemplate.batchUpdate(RETRY_SQL, retries);
+        }
+        if (!failed.isEmpty()) {
+            jdbcTemplate.batchUpdate(FAILED_SQL, failed);
+        }
+    }
+
+    /** initial, 2x, 4x, ... up to the maximum, +/- 20% so retries don't all land together */
+    private long backoffMillis(int previousAttempts) {
+        long initialMs = initialBackoffSeconds * 1000;
+        long maxMs = maxBackoffMinutes * 60_000;
+        long delay = initialMs << Math.min(previousAttempts, 20);
+        delay = Math.min(delay, maxMs);
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return (long) (delay * jitter);
+    }
+
+    private static String describe(Throwable error) {
+        String text = error.getClass().getSimpleName() + ": " + error.getMessage();
+        return text.length() > 500 ? text.substring(0, 500) : text;
+    }
+}
@@ -0,0 +1,85 @@
+package com.goldcosmetics.service;
+
+import com.goldcosmetics.model.NotificationChannel;
+import com.goldcosmetics.model.NotificationType;
+import com.goldcosmetics.model.OutboxNotification;
+import com.goldcosmetics.model.Role;
+import com.goldcosmetics.model.User;
+import com.goldcosmetics.repository.OutboxNotificationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Queues notices about account changes. Nothing is sent here - the rows are
+ * saved in the caller's transaction and NotificationDispatcher picks them up
+ * once it commits, so the request never waits on SMTP or the SMS gateway.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)  // Always part of the user change
+public class NotificationOutbox {
+
+    @Autowired
+    private OutboxNotificationRepository outboxRepository;
+
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+
+    /**
+     * Welcome email for a new account: a confirmation for customers,
+     * onboarding details for staff
+     */
+    public void queueWelcome(User user) {
+        if (user.getRole() == Role.CUSTOMER) {
+            email(user, NotificationType.REGISTRATION_CONFIRMATION,
+                    "Welcome to Gold Cosmetics!",
+                    "Hi " + user.getFullName() + ",\n\n"
+                  + "Your Gold Cosmetics account (" + user.getUsername() + ") is ready.\n"
+                  + "Log in any time to shop and track your orders.\n\n"
+                  + "Gold Cosmetics - Naivasha & Karagita");
+        } else {
+            String shop = user.getShopLocation() != null ? user.getShopLocation() : "head office";
+            email(user, NotificationType.EMPLOYEE_ONBOARDING,
+                    "Your Gold Cosmetics staff account",
+                    "Hi " + user.getFullName() + ",\n\n"
+                  + "An account has been created for you at the " + shop + " shop.\n"
+                  + "Username: " + user.getUsername() + "\n"
+                  + "Please log in and change your password on your first day.\n\n"
+                  + "Gold Cosmetics");
+        }
+        notificationDispatcher.wakeUpAfterCommit();
+    }
+
+    /**
+     * Security notice after a password change, by email and (if we have a number) SMS
+     */
+    public void queuePasswordChanged(User user) {
+        email(user, NotificationType.PASSWORD_CHANGED,
+                "Your Gold Cosmetics password was changed",
+                "Hi " + user.getFullName() + ",\n\n"
+              + "The password for " + user.getUsername() + " was just changed.\n"
+              + "If this wasn't you, please contact the shop straight away.\n\n"
+              + "Gold Cosmetics");
+        if (user.getPhone() != null && !user.getPhone().isBlank()) {
+            save(NotificationChannel.SMS, NotificationType.PASSWORD_CHANGED, user.getPhone(), null,
+                    "Gold Cosmetics: your password was changed. Not you? Call the shop now.");
+        }
+        notificationDispatcher.wakeUpAfterCommit();
+    }
+
+    private void email(User user, NotificationType type, String subject, String body) {
+        save(NotificationChannel.EMAIL, type, user.getEmail(), subject, body);
+    }
+
+    private void save(NotificationChannel channel, NotificationType type, String recipient,
+                      String subject, String body) {
+        outboxRepository.save(OutboxNotification.builder()
+                .channel(channel)
+                .type(type)
+                .recipient(recipient)
+                .subject(subject)
+                .body(body)
+                .build());
+    }
+}
@@ -0,0 +1,19 @@
+package com.goldcosmetics.service;
+
+import com.goldcosmetics.model.NotificationChannel;
+
+/**
+ * Delivers one kind of notification. Must be safe to call from several threads.
+ */
+public interface NotificationSender {
+
+    NotificationChannel getChannel();
+
+    /** How many messages may be sent at the same time (e.g. open connections) */
+    int getConcurrency();
+
+    /**
+     * @throws Exception anything that went wrong - the message will be retried later
+     */
+    void send(String recipient, String subject, String body) throws Exception;
+}
@@ -0,0 +1,465 @@
+package com.goldcosmetics.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goldcosmetics.dto.OrderLineRequest;
+import com.goldcosmetics.dto.OrderRequest;
+import com.goldcosmetics.model.CustomerOrder;
+import com.goldcosmetics.model.OrderDeadLetter;
+import com.goldcosmetics.model.OrderItem;
+import com.goldcosmetics.repository.OrderDeadLetterRepository;
+import com.goldcosmetics.repository.OrderRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind order pipeline.
+ *
+ * 1. submit() validates the order, appends it to the OrderJournal and returns.
+ * 2. A background thread saves journaled orders to the database in batches,
+ *    one transaction per shop.
+ * 3. On startup, orders that were journaled but never saved are replayed.
+ * 4. An order the database refuses is kept in order_dead_letters, never dropped.
+ *    So is a journaled order that can no longer be read back.
+ * 5. Saving an order takes its items out of the shop's stock, the same way a
+ *    till sale does (see PosSyncService).
+ *
+ * Checkout therefore never waits for a database commit.
+ */
+@Service
+public class OrderIngestionService {
+
+    private static final long INITIAL_BACKOFF_MS = 200;
+    private static final long MAX_BACKOFF_MS = 10_000;
+
+    // Column sizes of the orders and order_items tables
+    private static final int MAX_USERNAME = 50;
+    private static final int MAX_SHOP = 50;
+    private static final int MAX_ADDRESS = 255;
+    private static final int MAX_SKU = 50;
+    private static final int MAX_PRODUCT_NAME = 100;
+    private static final int MAX_AMOUNT_DIGITS = 10;   // numeric(12, 2)
+
+    @Autowired
+    private OrderJournal orderJournal;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderDeadLetterRepository orderDeadLetterRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CustomerSearchService customerSearchService;
+
+    @Autowired
+    private PaymentCallbackService paymentCallbackService;
+
+    @Value("${goldcosmetics.orders.batch-size:200}")
+    private int batchSize;
+
+    // An order waiting to be saved, with its position in the journal.
+    // request is null if the journaled bytes could not be read back.
+    private record JournaledOrder(long sequence, OrderRequest request, byte[] payload) {
+    }
+
+    private final BlockingQueue<JournaledOrder> pending = new LinkedBlockingQueue<>();
+
+    // Keeps journal order and queue order the same
+    private final Object appendLock = new Object();
+
+    private volatile boolean running;
+    private Thread persister;
+
+    @PostConstruct
+    public void start() {
+        recover();
+
+        running = true;
+        persister = new Thread(this::persistLoop, "order-persister");
+        persister.setDaemon(true);
+        persister.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (persister != null) {
+            persister.interrupt();
+            persister.join(5000);
+        }
+        // Anything still queued stays in the journal and is replayed on next startup
+    }
+
+    /**
+     * Accept an order for the given customer and return its order reference.
+     *
+     * The order is durable once this returns; it shows up in the
+     * database shortly afterwards.
+     */
+    public String submit(OrderRequest request, String customerUsername) {
+
+        // STEP 1: Validate - everything the database would refuse must be caught here,
+        // because once the order is journaled the customer is told it was received
+        validate(request, customerUsername);
+
+        // STEP 2: Fill in server-side fields
+        request.setOrderReference(UUID.randomUUID().toString());
+        request.setCustomerUsername(customerUsername);
+        request.setPlacedAt(LocalDateTime.now());
+
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(request);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not encode order", e);
+        }
+
+        // STEP 3: Journal it and hand it to the background persister
+        synchronized (appendLock) {
+            long sequence = orderJournal.append(payload);
+            pending.add(new JournaledOrder(sequence, request, payload));
+        }
+
+        System.out.println("🧾 Order accepted: " + request.getOrderReference()
+                         + " (" + customerUsername + " @ " + request.getShopLocation() + ")");
+        return request.getOrderReference();
+    }
+
+    private void validate(OrderRequest request, String customerUsername) {
+        if (customerUsername == null || customerUsername.isBlank() || customerUsername.length() > MAX_USERNAME) {
+            throw new IllegalArgumentException("Invalid customer");
+        }
+        if (request.getShopLocation() == null || request.getShopLocation().isBlank()
+                || request.getShopLocation().length() > MAX_SHOP) {
+            throw new IllegalArgumentException("Shop location is required (at most " + MAX_SHOP + " characters)");
+        }
+        if (request.getDeliveryAddress() != null && request.getDeliveryAddress().length() > MAX_ADDRESS) {
+            throw new IllegalArgumentException("Delivery address must be at most " + MAX_ADDRESS + " characters");
+        }
+        if (request.getLines() == null || request.getLines().isEmpty()) {
+            throw new IllegalArgumentException("An order needs at least one item");
+        }
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderLineRequest line : request.getLines()) {
+            if (line == null) {
+                throw new IllegalArgumentException("Empty order line");
+            }
+            if (line.getProductSku() == null || line.getProductSku().isBlank()
+                    || line.getProductSku().length() > MAX_SKU) {
+                throw new IllegalArgumentException("Invalid product SKU: " + line.getProductSku());
+            }
+            if (line.getProductName() == null || line.getProductName().isBlank()
+                    || line.getProductName().length() > MAX_PRODUCT_NAME) {
+                throw new IllegalArgumentException("Invalid product name for " + line.getProductSku());
+            }
+            if (line.getQuantity() == null || line.getQuantity() < 1) {
+                throw new IllegalArgumentException("Invalid quantity for " + line.getProductSku());
+            }
+            if (line.getUnitPrice() == null || line.getUnitPrice().signum() < 0 || !fitsAmount(line.getUnitPrice())) {
+                throw new IllegalArgumentException("Invalid price for " + line.getProductSku());
+            }
+            total = total.add(line.getUnitPrice().multiply(BigDecimal.valueOf(line.getQuantity())));
+        }
+        if (!fitsAmount(total)) {
+            throw new IllegalArgumentException("Order total is too large");
+        }
+    }
+
+    // Fits numeric(12, 2) without losing anything
+    private static boolean fitsAmount(BigDecimal amount) {
+        BigDecimal stripped = amount.stripTrailingZeros();
+        return stripped.scale() <= 2 && stripped.precision() - stripped.scale() <= MAX_AMOUNT_DIGITS;
+    }
+
+    /**
+     * Number of orders accepted but not yet in the database
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private void recover() {
+        List<OrderJournal.JournalEntry> entries = orderJournal.readUnpersisted();
+        for (OrderJournal.JournalEntry entry : entries) {
+            OrderRequest request = null;
+            try {
+                request = objectMapper.readValue(entry.payload(), OrderRequest.class);
+            } catch (IOException e) {
+                // Still queued: the persister dead-letters it before the journal moves past it
+                System.out.println("❌ Could not read journaled order #" + entry.sequence() + ": " + e.getMessage());
+            }
+            pending.add(new JournaledOrder(entry.sequence(), request, entry.payload()));
+        }
+        if (!entries.isEmpty()) {
+            System.out.println("♻️ Replaying " + entries.size() + " journaled orders that were not saved yet");
+        }
+    }
+
+    private void persistLoop() {
+        List<JournaledOrder> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                JournaledOrder first = pending.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch, batchSize - 1);
+
+                persistBatch(batch);
+                orderJournal.markPersisted(batch.get(batch.size() - 1).sequence());
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void persistBatch(List<JournaledOrder> batch) throws InterruptedException {
+
+        // Group by shop - one transaction per shop
+        Map<String, List<OrderRequest>> byShop = new LinkedHashMap<>();
+        for (JournaledOrder journaled : batch) {
+            if (journaled.request() == null) {
+                deadLetterUnreadable(journaled);
+                continue;
+            }
+            byShop.computeIfAbsent(journaled.request().getShopLocation(), shop -> new ArrayList<>())
+                  .add(journaled.request());
+        }
+
+        for (Map.Entry<String, List<OrderRequest>> entry : byShop.entrySet()) {
+            persistShopBatch(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Returns only once every order is either saved or dead-lettered, so the
+     * journal's persisted mark never moves past an order that is in neither place
+     */
+    private void persistShopBatch(String shopLocation, List<OrderRequest> orders) throws InterruptedException {
+        List<OrderRequest> remaining = new ArrayList<>(orders);
+        long backoffMs = INITIAL_BACKOFF_MS;
+
+        while (true) {
+            try {
+                insertNewOrders(remaining);
+                return;
+            } catch (RuntimeException e) {
+                System.out.println("⚠️ Saving " + remaining.size() + " orders for " + shopLocation
+                                 + " failed: " + e.getMessage());
+            }
+
+            // If the database is up, some orders in the batch are bad.
+            // Save the good ones one at a time and dead-letter the rest.
+            if (isDatabaseReachable()) {
+                Iterator<OrderRequest> iterator = remaining.iterator();
+                while (iterator.hasNext()) {
+                    OrderRequest order = iterator.next();
+                    try {
+                        insertNewOrders(List.of(order));
+                        iterator.remove();
+                    } catch (RuntimeException e) {
+                        if (!deadLetter(order, e)) {
+                            break;      // Database went away - retry what is left
+                        }
+                        iterator.remove();
+                    }
+                }
+                if (remaining.isEmpty()) {
+                    return;
+                }
+            }
+
+            // Database is down - wait and try again
+            Thread.sleep(backoffMs);
+            backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        }
+    }
+
+    private boolean deadLetter(OrderRequest order, RuntimeException cause) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(order);
+        } catch (JsonProcessingException e) {
+            payload = String.valueOf(order);
+        }
+        return deadLetter(order.getOrderReference(), order.getCustomerUsername(), order.getShopLocation(),
+                          payload, String.valueOf(cause.getMessage()));
+    }
+
+    /**
+     * A journaled order that no longer decodes. The customer was told it was
+     * received, so keep the raw bytes for staff - waits for the database
+     * rather than letting the journal move past it.
+     */
+    private void deadLetterUnreadable(JournaledOrder journaled) throws InterruptedException {
+        String text = new String(journaled.payload(), StandardCharsets.UTF_8);
+        String reference = null;
+        try {
+            JsonNode reported = objectMapper.readTree(journaled.payload()).path("orderReference");
+            if (reported.isTextual() && reported.asText().length() <= 36) {
+                reference = reported.asText();
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not even JSON - keep the bytes as they are
+        }
+        if (reference == null) {
+            // Same bytes, same reference, so a replay after a crash is not stored twice
+            reference = UUID.nameUUIDFromBytes(journaled.payload()).toString();
+        }
+        if (text.indexOf('\0') >= 0) {
+            text = "base64:" + Base64.getEncoder().encodeToString(journaled.payload());   // text columns refuse NUL
+        }
+
+        long backoffMs = INITIAL_BACKOFF_MS;
+        while (!deadLetter(reference, null, null, text,
+                           "Journal record #" + journaled.sequence() + " could not be read")) {
+            Thread.sleep(backoffMs);
+            backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        }
+    }
+
+    private boolean deadLetter(String orderReference, String customerUsername, String shopLocation,
+                               String payload, String error) {
+        try {
+            // A replay after a crash may find it already dead-lettered
+            if (!orderDeadLetterRepository.existsByOrderReference(orderReference)) {
+                orderDeadLetterRepository.save(OrderDeadLetter.builder()
+                        .orderReference(orderReference)
+                        .customerUsername(customerUsername)
+                        .shopLocation(shopLocation)
+                        .payload(payload)
+                        .error(error.length() > 500 ? error.substring(0, 500) : error)
+                        .build());
+            }
+            System.out.println("🪦 Order " + orderReference + " could not be saved and was moved to "
+                             + "order_dead_letters: " + error);
+            return true;
+        } catch (RuntimeException e) {
+            System.out.println("⚠️ Could not dead-letter order " + orderReference + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void insertNewOrders(List<OrderRequest> orders) {
+        List<CustomerOrder> saved = transactionTemplate.execute(status -> {
+
+            // Orders replayed after a crash may already be saved
+            List<String> references = orders.stream().map(OrderRequest::getOrderReference).toList();
+            Set<String> existing = new HashSet<>(orderRepository.findExistingReferences(references));
+
+            List<CustomerOrder> toSave = new ArrayList<>();
+            for (OrderRequest order : orders) {
+                if (!existing.contains(order.getOrderReference())) {
+                    toSave.add(toEntity(order));
+                }
+            }
+            if (toSave.isEmpty()) {
+                return toSave;
+            }
+            orderRepository.saveAllAndFlush(toSave);
+            takeFromStock(toSave);
+
+            // Pick up payments that were reported before the order got here
+            paymentCallbackService.settle(toSave.stream().map(CustomerOrder::getOrderReference).toList());
+            return toSave;
+        });
+
+        // Customers who buy at a shop rank higher in that shop's customer search
+        for (CustomerOrder order : saved) {
+            customerSearchService.recordShopVisit(order.getCustomerUsername(), order.getShopLocation());
+        }
+    }
+
+    /**
+     * Web orders take stock as soon as they are saved, like till sales. There
+     * is no reservation at checkout: the order is accepted first (journaled)
+     * and a shop may go below zero, which staff see and restock.
+     */
+    private void takeFromStock(List<CustomerOrder> orders) {
+        Map<List<String>, Integer> soldByShopAndSku = new LinkedHashMap<>();
+        for (CustomerOrder order : orders) {
+            for (OrderItem item : order.getItems()) {
+                soldByShopAndSku.merge(List.of(order.getShopLocation(), item.getProductSku()),
+                                       item.getQuantity(), Integer::sum);
+            }
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> stockRows = new ArrayList<>(soldByShopAndSku.size());
+        for (Map.Entry<List<String>, Integer> entry : soldByShopAndSku.entrySet()) {
+            stockRows.add(new Object[] { entry.getKey().get(0), entry.getKey().get(1), -entry.getValue(), now });
+        }
+        jdbcTemplate.batchUpdate(PosSyncService.APPLY_STOCK_DELTA_SQL, stockRows);
+    }
+
+    private boolean isDatabaseReachable() {
+        try {
+            orderRepository.count();
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private CustomerOrder toEntity(OrderRequest request) {
+        CustomerOrder order = CustomerOrder.builder()
+                .orderReference(request.getOrderReference())
+                .customerUsername(request.getCustomerUsername())
+                .shopLocation(request.getShopLocation())
+                .deliveryAddress(request.getDeliveryAddress())
+                .placedAt(request.getPlacedAt())
+                .build();
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderLineRequest line : request.getLines()) {
+            order.addItem(OrderItem.builder()
+                    .productSku(line.getProductSku())
+                    .productName(line.getProductName())
+                    .quantity(line.getQuantity())
+                    .unitPrice(line.getUnitPrice())
+                    .build());
+            total = total.add(line.getUnitPrice().multiply(BigDecimal.valueOf(line.getQuantity())));
+        }
+        order.setTotalAmount(total);
+        return order;
+    }
+}
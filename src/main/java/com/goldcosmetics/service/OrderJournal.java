@@ -0,0 +1,199 @@
+package com.goldcosmetics.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only order journal backed by a memory-mapped file.
+ *
+ * Checkout writes each order here and answers the customer straight away.
+ * The database insert happens later (see OrderIngestionService). Because the
+ * file is memory-mapped, an append is just a memory copy - the operating
+ * system writes the pages to disk even if our process crashes.
+ *
+ * File layout:
+ *   header (64 bytes): magic, write position, persisted sequence, last sequence
+ *   records:           [length:int][sequence:long][crc32:int][payload bytes]
+ *   a length of 0 marks the end of the records
+ */
+@Component
+public class OrderJournal {
+
+    private static final int MAGIC = 0x474F4A31;  // "GOJ1"
+    private static final int HEADER_SIZE = 64;
+    private static final int POS_MAGIC = 0;
+    private static final int POS_WRITE = 8;
+    private static final int POS_PERSISTED = 16;
+    private static final int POS_LAST = 24;
+    private static final int RECORD_HEADER_SIZE = 4 + 8 + 4;  // length + sequence + crc
+
+    @Value("${goldcosmetics.orders.journal.path:data/orders.journal}")
+    private String journalPath;
+
+    @Value("${goldcosmetics.orders.journal.size-mb:64}")
+    private int journalSizeMb;
+
+    // true = flush to disk on every append (survives power loss, costs a disk sync)
+    @Value("${goldcosmetics.orders.journal.force-on-append:false}")
+    private boolean forceOnAppend;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    /**
+     * A journaled record that has not been saved to the database yet
+     */
+    public record JournalEntry(long sequence, byte[] payload) {
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Path file = Paths.get(journalPath);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max((long) journalSizeMb * 1024 * 1024, channel.size());
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+        // Brand new file - write an empty header
+        if (buffer.getInt(POS_MAGIC) != MAGIC) {
+            buffer.putInt(POS_MAGIC, MAGIC);
+            buffer.putLong(POS_WRITE, HEADER_SIZE);
+            buffer.putLong(POS_PERSISTED, 0);
+            buffer.putLong(POS_LAST, 0);
+            buffer.putInt(HEADER_SIZE, 0);
+            buffer.force();
+        }
+
+        System.out.println("📒 Order journal opened: " + file.toAbsolutePath()
+                         + " (last #" + buffer.getLong(POS_LAST)
+                         + ", saved up to #" + buffer.getLong(POS_PERSISTED) + ")");
+    }
+
+    /**
+     * Append a record and return its sequence number
+     */
+    public synchronized long append(byte[] payload) {
+        long write = buffer.getLong(POS_WRITE);
+        int recordSize = RECORD_HEADER_SIZE + payload.length;
+
+        // Keep 4 bytes free for the end marker
+        if (write + recordSize + 4 > buffer.capacity()) {
+            if (!isFullyPersisted()) {
+                throw new RuntimeException("Order journal is full - orders are still being saved, please try again");
+            }
+            write = HEADER_SIZE;
+        }
+
+        long sequence = buffer.getLong(POS_LAST) + 1;
+        int pos = (int) write;
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        buffer.putInt(pos, payload.length);
+        buffer.putLong(pos + 4, sequence);
+        buffer.putInt(pos + 12, (int) crc.getValue());
+        buffer.put(pos + RECORD_HEADER_SIZE, payload);
+        buffer.putInt(pos + recordSize, 0);
+
+        // Header last, so a half-written record is never visible after a crash
+        buffer.putLong(POS_LAST, sequence);
+        buffer.putLong(POS_WRITE, write + recordSize);
+
+        if (forceOnAppend) {
+            buffer.force(pos, recordSize + 4);
+            buffer.force(0, HEADER_SIZE);
+        }
+        return sequence;
+    }
+
+    /**
+     * Record that everything up to (and including) this sequence is in the database
+     */
+    public synchronized void markPersisted(long sequence) {
+        if (sequence <= buffer.getLong(POS_PERSISTED)) {
+            return;
+        }
+        buffer.putLong(POS_PERSISTED, sequence);
+
+        // Nothing left to replay - start writing from the top again
+        if (isFullyPersisted()) {
+            buffer.putLong(POS_WRITE, HEADER_SIZE);
+            buffer.putInt(HEADER_SIZE, 0);
+        }
+    }
+
+    /**
+     * Read every record that has not been saved to the database yet (used on startup)
+     */
+    public synchronized List<JournalEntry> readUnpersisted() {
+        List<JournalEntry> entries = new ArrayList<>();
+        long persisted = buffer.getLong(POS_PERSISTED);
+        long end = buffer.getLong(POS_WRITE);
+        int pos = HEADER_SIZE;
+
+        while (pos + RECORD_HEADER_SIZE <= end) {
+            int length = buffer.getInt(pos);
+            if (length <= 0 || pos + RECORD_HEADER_SIZE + length > end) {
+                break;
+            }
+            long sequence = buffer.getLong(pos + 4);
+            int storedCrc = buffer.getInt(pos + 12);
+
+            byte[] payload = new byte[length];
+            buffer.get(pos + RECORD_HEADER_SIZE, payload);
+
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != storedCrc) {
+                System.out.println("⚠️ Order journal record #" + sequence + " is damaged - stopping replay here");
+                break;
+            }
+
+            if (sequence > persisted) {
+                entries.add(new JournalEntry(sequence, payload));
+            }
+            pos += RECORD_HEADER_SIZE + length;
+        }
+        return entries;
+    }
+
+    public synchronized long getLastSequence() {
+        return buffer.getLong(POS_LAST);
+    }
+
+    public synchronized long getPersistedSequence() {
+        return buffer.getLong(POS_PERSISTED);
+    }
+
+    private boolean isFullyPersisted() {
+        return buffer.getLong(POS_PERSISTED) >= buffer.getLong(POS_LAST);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (buffer != null) {
+            buffer.force();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+        System.out.println("📒 Order journal closed");
+    }
+}
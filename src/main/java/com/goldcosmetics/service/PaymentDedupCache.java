@@ -0,0 +1,58 @@
+package com.goldcosmetics.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers recently saved callbacks so gateway retries are answered
+ * without touching the database.
+ *
+ * A callback is keyed by reference + event + status: the same transaction
+ * may report a failure and then a success, and both must get through.
+ * Keys are only remembered once the callback is committed, so a retry that
+ * races a failed save is not acknowledged by mistake.
+ *
+ * This is only a fast path - after a restart or once an entry expires,
+ * the unique constraint on payment_events still catches duplicates.
+ */
+@Component
+public class PaymentDedupCache {
+
+    // key -> expiry time (millis)
+    private final ConcurrentHashMap<String, Long> seen = new ConcurrentHashMap<>();
+
+    @Value("${goldcosmetics.payments.dedup-ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${goldcosmetics.payments.dedup-max-entries:500000}")
+    private int maxEntries;
+
+    /**
+     * True if this callback was saved recently (and has not expired)
+     */
+    public boolean contains(String key) {
+        Long expiresAt = seen.get(key);
+        return expiresAt != null && expiresAt >= System.currentTimeMillis();
+    }
+
+    /**
+     * Remember a callback that is now in the database
+     */
+    public void remember(String key) {
+        // Cache is full - let the database constraint decide
+        if (seen.size() >= maxEntries && !seen.containsKey(key)) {
+            return;
+        }
+        seen.put(key, System.currentTimeMillis() + ttlMinutes * 60_000);
+    }
+
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        seen.values().removeIf(expiresAt -> expiresAt < now);
+    }
+
+    public int size() {
+        return seen.size();
+    }
+}
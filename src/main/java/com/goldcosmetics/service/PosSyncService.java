@@ -0,0 +1,215 @@
+package com.goldcosmetics.service;
+
+import com.goldcosmetics.dto.PosSaleLine;
+import com.goldcosmetics.dto.PosSaleRecord;
+import com.goldcosmetics.dto.PosSyncRequest;
+import com.goldcosmetics.dto.PosSyncResponse;
+import com.goldcosmetics.dto.ProductDelta;
+import com.goldcosmetics.model.Product;
+import com.goldcosmetics.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies a batch of offline till sales in one go.
+ *
+ * Instead of one request (and one transaction) per sale, a till uploads
+ * everything it recorded since its last sync. The whole batch is applied
+ * with three bulk statements:
+ *   1. insert the sales (duplicates are ignored by the unique client_sale_id)
+ *   2. insert the lines of the sales that were actually new
+ *   3. subtract the sold quantities from the shop's stock, one row per product
+ */
+@Service
+public class PosSyncService {
+
+    private static final String INSERT_SALE_SQL =
+            "insert into pos_sales (client_sale_id, employee_username, shop_location, total_amount, sold_at, synced_at) "
+          + "values (?, ?, ?, ?, ?, ?) on conflict (client_sale_id) do nothing";
+
+    private static final String INSERT_ITEM_SQL =
+            "insert into pos_sale_items (client_sale_id, product_sku, quantity, unit_price) values (?, ?, ?, ?)";
+
+    // Also used by OrderIngestionService for web orders
+    static final String APPLY_STOCK_DELTA_SQL =
+            "insert into shop_stock (shop_location, product_sku, quantity, updated_at) values (?, ?, ?, ?) "
+          + "on conflict (shop_location, product_sku) "
+          + "do update set quantity = shop_stock.quantity + excluded.quantity, updated_at = excluded.updated_at";
+
+    // Size of pos_sale_items.product_sku
+    private static final int MAX_SKU = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${goldcosmetics.pos.max-sales-per-sync:5000}")
+    private int maxSalesPerSync;
+
+    @Transactional
+    public PosSyncResponse sync(PosSyncRequest request, String employeeUsername, String shopLocation) {
+
+        List<PosSaleRecord> sales = request.getSales() == null ? List.of() : request.getSales();
+        if (sales.size() > maxSalesPerSync) {
+            throw new IllegalArgumentException("Too many sales in one sync (max " + maxSalesPerSync + ")");
+        }
+
+        // STEP 1: Reject bad sales one by one. Anything the database would refuse
+        // must be caught here - one bad row would roll back the whole sync and
+        // the till would keep sending it forever.
+        Map<String, String> rejected = new LinkedHashMap<>();
+        List<PosSaleRecord> checked = new ArrayList<>();
+        Set<String> skus = new HashSet<>();
+        for (PosSaleRecord sale : sales) {
+            String problem = validate(sale);
+            if (problem == null) {
+                checked.add(sale);
+                sale.getLines().forEach(line -> skus.add(line.getProductSku()));
+            } else {
+                rejected.put(String.valueOf(sale.getClientSaleId()), problem);
+            }
+        }
+
+        Set<String> knownSkus = skus.isEmpty() ? Set.of() : new HashSet<>(productRepository.findExistingSkus(skus));
+        List<PosSaleRecord> valid = new ArrayList<>(checked.size());
+        for (PosSaleRecord sale : checked) {
+            String unknown = sale.getLines().stream()
+                    .map(PosSaleLine::getProductSku)
+                    .filter(sku -> !knownSkus.contains(sku))
+                    .findFirst().orElse(null);
+            if (unknown == null) {
+                valid.add(sale);
+            } else {
+                rejected.put(sale.getClientSaleId(), "Unknown product " + unknown);
+            }
+        }
+
+        // STEP 2: Insert the sale headers; a 0 count means we already had it
+        // (needs per-row counts, so don't turn on reWriteBatchedInserts in the JDBC driver)
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> saleRows = new ArrayList<>(valid.size());
+        for (PosSaleRecord sale : valid) {
+            saleRows.add(new Object[] {
+                    sale.getClientSaleId(), employeeUsername, shopLocation,
+                    totalOf(sale), Timestamp.valueOf(sale.getSoldAt()), now });
+        }
+        int[] inserted = saleRows.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(INSERT_SALE_SQL, saleRows);
+
+        // STEP 3: Lines and stock changes for the new sales only
+        List<Object[]> itemRows = new ArrayList<>();
+        Map<String, Integer> soldBySku = new LinkedHashMap<>();
+        int applied = 0;
+        for (int i = 0; i < valid.size(); i++) {
+            if (inserted[i] <= 0) {
+                continue;
+            }
+            applied++;
+            PosSaleRecord sale = valid.get(i);
+            for (PosSaleLine line : sale.getLines()) {
+                itemRows.add(new Object[] {
+                        sale.getClientSaleId(), line.getProductSku(), line.getQuantity(), line.getUnitPrice() });
+                soldBySku.merge(line.getProductSku(), line.getQuantity(), Integer::sum);
+            }
+        }
+        if (!itemRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, itemRows);
+        }
+
+        List<Object[]> stockRows = new ArrayList<>(soldBySku.size());
+        for (Map.Entry<String, Integer> entry : soldBySku.entrySet()) {
+            stockRows.add(new Object[] { shopLocation, entry.getKey(), -entry.getValue(), now });
+        }
+        if (!stockRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(APPLY_STOCK_DELTA_SQL, stockRows);
+        }
+
+        // STEP 4: Catalog changes the till has not seen yet
+        List<ProductDelta> products = new ArrayList<>();
+        long syncVersion = request.getLastSyncVersion();
+        for (Product product : productService.getChangesSince(request.getLastSyncVersion())) {
+            products.add(ProductDelta.builder()
+                    .sku(product.getSku())
+                    .name(product.getName())
+                    .price(product.getPrice())
+                    .active(Boolean.TRUE.equals(product.getIsActive()))
+                    .version(product.getCatalogVersion())
+                    .build());
+            syncVersion = Math.max(syncVersion, product.getCatalogVersion());
+        }
+
+        int duplicates = valid.size() - applied;
+        System.out.println("🔄 POS sync from " + employeeUsername + " @ " + shopLocation + ": "
+                         + applied + " new, " + duplicates + " duplicate, " + rejected.size() + " rejected, "
+                         + products.size() + " catalog changes");
+
+        return PosSyncResponse.builder()
+                .applied(applied)
+                .duplicates(duplicates)
+                .rejected(rejected)
+                .syncVersion(syncVersion)
+                .products(products)
+                .build();
+    }
+
+    private String validate(PosSaleRecord sale) {
+        if (sale.getClientSaleId() == null || sale.getClientSaleId().isBlank()
+                || sale.getClientSaleId().length() > 36) {
+            return "Missing or invalid clientSaleId";
+        }
+        if (sale.getSoldAt() == null) {
+            return "Missing soldAt";
+        }
+        if (sale.getLines() == null || sale.getLines().isEmpty()) {
+            return "Sale has no items";
+        }
+        for (PosSaleLine line : sale.getLines()) {
+            if (line == null || line.getProductSku() == null || line.getProductSku().isBlank()) {
+                return "Item without SKU";
+            }
+            if (line.getProductSku().length() > MAX_SKU) {
+                return "SKU longer than " + MAX_SKU + " characters";
+            }
+            if (line.getQuantity() == null || line.getQuantity() < 1) {
+                return "Invalid quantity for " + line.getProductSku();
+            }
+            if (line.getUnitPrice() == null || line.getUnitPrice().signum() < 0 || !fitsAmount(line.getUnitPrice())) {
+                return "Invalid price for " + line.getProductSku();
+            }
+        }
+        if (!fitsAmount(totalOf(sale))) {
+            return "Sale total is too large";
+        }
+        return null;
+    }
+
+    // Fits numeric(12, 2) without losing anything
+    private static boolean fitsAmount(BigDecimal amount) {
+        BigDecimal stripped = amount.stripTrailingZeros();
+        return stripped.scale() <= 2 && stripped.precision() - stripped.scale() <= 10;
+    }
+
+    private BigDecimal totalOf(PosSaleRecord sale) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (PosSaleLine line : sale.getLines()) {
+            total = total.add(line.getUnitPrice().multiply(BigDecimal.valueOf(line.getQuantity())));
+        }
+        return total;
+    }
+}
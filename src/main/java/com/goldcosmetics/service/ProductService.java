@@ -0,0 +1,62 @@
+package com.goldcosmetics.service;
+
+import com.goldcosmetics.model.Product;
+import com.goldcosmetics.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+@Transactional
+public class ProductService {
+
+    // Any fixed number - only catalog writes use this advisory lock
+    private static final long CATALOG_WRITE_LOCK = 0x601DCA7AL;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Create or update a product
+     *
+     * Every save gets a new catalog version so POS tills pick up the change.
+     *
+     * Catalog writes take a lock that is held until commit, so versions become
+     * visible in the order they were handed out. Without it, version 7 could
+     * commit after a till had already synced past version 8 and never be sent.
+     */
+    public Product saveProduct(Product product) {
+        jdbcTemplate.execute("select pg_advisory_xact_lock(" + CATALOG_WRITE_LOCK + ")");
+        product.setCatalogVersion(productRepository.nextCatalogVersion());
+        Product saved = productRepository.save(product);
+        System.out.println("📦 Product saved: " + saved.getSku() + " (catalog v" + saved.getCatalogVersion() + ")");
+        return saved;
+    }
+
+    public Optional<Product> findBySku(String sku) {
+        return productRepository.findBySku(sku);
+    }
+
+    public List<Product> getActiveProducts() {
+        return productRepository.findByIsActiveTrue();
+    }
+
+    /**
+     * Products added or changed after the given catalog version
+     */
+    @Transactional(readOnly = true)
+    public List<Product> getChangesSince(long catalogVersion) {
+        return productRepository.findByCatalogVersionGreaterThanOrderByCatalogVersionAsc(catalogVersion);
+    }
+
+    @Transactional(readOnly = true)
+    public long getCurrentCatalogVersion() {
+        return productRepository.findCurrentCatalogVersion();
+    }
+}
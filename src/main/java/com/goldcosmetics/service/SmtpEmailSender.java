@@ -0,0 +1,142 @@
+package com.goldcosmetics.service;
+
+import com.goldcosmetics.model.NotificationChannel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends email over a small pool of SMTP connections that stay open.
+ *
+ * Opening an SMTP session (TCP, greeting, EHLO, STARTTLS, AUTH) costs several
+ * round trips, so each connection is reused for many messages. A connection
+ * that errors is thrown away. One that sat unused for a while is checked with
+ * a NOOP first (servers hang up on idle clients) and reopened if it is gone;
+ * one used moments ago goes straight back to work, saving a round trip per
+ * message while the outbox is busy.
+ */
+@Component
+public class SmtpEmailSender implements NotificationSender {
+
+    @Value("${goldcosmetics.notifications.email.host:localhost}")
+    private String host;
+
+    @Value("${goldcosmetics.notifications.email.port:25}")
+    private int port;
+
+    @Value("${goldcosmetics.notifications.email.username:}")
+    private String username;
+
+    @Value("${goldcosmetics.notifications.email.password:}")
+    private String password;
+
+    @Value("${goldcosmetics.notifications.email.starttls:false}")
+    private boolean startTls;
+
+    @Value("${goldcosmetics.notifications.email.from:no-reply@goldcosmetics.co.ke}")
+    private String from;
+
+    @Value("${goldcosmetics.notifications.email.connections:4}")
+    private int connections;
+
+    // Connections unused for longer than this get a NOOP before they are used again
+    @Value("${goldcosmetics.notifications.email.check-after-idle-seconds:10}")
+    private long checkAfterIdleSeconds;
+
+    private record IdleTransport(Transport transport, long idleSinceNanos) { }
+
+    private Session session;
+    private BlockingQueue<IdleTransport> idle;
+
+    @PostConstruct
+    public void start() {
+        Properties properties = new Properties();
+        properties.put("mail.smtp.host", host);
+        properties.put("mail.smtp.port", String.valueOf(port));
+        properties.put("mail.smtp.auth", String.valueOf(!username.isBlank()));
+        properties.put("mail.smtp.starttls.enable", String.valueOf(startTls));
+        properties.put("mail.smtp.connectiontimeout", "10000");
+        properties.put("mail.smtp.timeout", "30000");
+        properties.put("mail.smtp.writetimeout", "30000");
+        session = Session.getInstance(properties);
+        idle = new ArrayBlockingQueue<>(connections);
+    }
+
+    @PreDestroy
+    public void stop() {
+        IdleTransport pooled;
+        while ((pooled = idle.poll()) != null) {
+            closeQuietly(pooled.transport());
+        }
+    }
+
+    @Override
+    public NotificationChannel getChannel() {
+        return NotificationChannel.EMAIL;
+    }
+
+    @Override
+    public int getConcurrency() {
+        return connections;
+    }
+
+    @Override
+    public void send(String recipient, String subject, String body) throws MessagingException {
+        MimeMessage message = new MimeMessage(session);
+        message.setFrom(new InternetAddress(from));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(recipient, true));
+        message.setSubject(subject, "UTF-8");
+        message.setText(body, "UTF-8");
+        message.saveChanges();
+
+        Transport transport = borrow();
+        try {
+            transport.sendMessage(message, message.getAllRecipients());
+        } catch (MessagingException | RuntimeException e) {
+            // Don't know what state the connection is in - start fresh next time
+            closeQuietly(transport);
+            throw e;
+        }
+        giveBack(transport);
+    }
+
+    private Transport borrow() throws MessagingException {
+        IdleTransport pooled = idle.poll();
+        if (pooled != null) {
+            long idleNanos = System.nanoTime() - pooled.idleSinceNanos();
+            // isConnected() sends a NOOP, so this also notices servers that hung up on us
+            if (idleNanos < TimeUnit.SECONDS.toNanos(checkAfterIdleSeconds) || pooled.transport().isConnected()) {
+                return pooled.transport();
+            }
+            closeQuietly(pooled.transport());
+        }
+        Transport transport = session.getTransport("smtp");
+        transport.connect(host, port, username.isBlank() ? null : username, password.isBlank() ? null : password);
+        return transport;
+    }
+
+    private void giveBack(Transport transport) {
+        if (!idle.offer(new IdleTransport(transport, System.nanoTime()))) {
+            closeQuietly(transport);
+        }
+    }
+
+    private static void closeQuietly(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            // Already gone
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.goldcosmetics.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for Paystack, for load testing the callback endpoint.
+ *
+ * When enabled it waits for the app to start, then fires signed callbacks at
+ * our own webhook on localhost and prints latency percentiles. Callbacks come
+ * from a recording (one raw JSON body per line) or, without one, are generated
+ * with a share of duplicates like a real post-promotion burst.
+ *
+ * Enable with: goldcosmetics.payments.stub-gateway.enabled=true
+ */
+@Component
+@ConditionalOnProperty(name = "goldcosmetics.payments.stub-gateway.enabled", havingValue = "true")
+public class StubPaymentGateway {
+
+    @Autowired
+    private PaymentCallbackService paymentCallbackService;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    @Value("${goldcosmetics.payments.stub-gateway.recording:}")
+    private String recordingPath;
+
+    @Value("${goldcosmetics.payments.stub-gateway.callbacks:20000}")
+    private int callbackCount;
+
+    @Value("${goldcosmetics.payments.stub-gateway.duplicate-percent:20}")
+    private int duplicatePercent;
+
+    @Value("${goldcosmetics.payments.stub-gateway.concurrency:32}")
+    private int concurrency;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayOnStartup() {
+        Thread runner = new Thread(this::replay, "stub-payment-gateway");
+        runner.setDaemon(true);
+        runner.start();
+    }
+
+    private void replay() {
+        List<String> bodies;
+        try {
+            bodies = recordingPath.isBlank() ? generateTraffic() : Files.readAllLines(Paths.get(recordingPath));
+        } catch (IOException e) {
+            System.out.println("❌ Stub gateway could not read recording: " + e.getMessage());
+            return;
+        }
+
+        URI callbackUri = URI.create("http://localhost:" + serverPort + "/payments/callback/paystack");
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long[] latenciesNanos = new long[bodies.size()];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+
+        System.out.println("💳 Stub gateway sending " + bodies.size() + " callbacks with " + concurrency + " senders");
+        long started = System.nanoTime();
+
+        ExecutorService senders = Executors.newFixedThreadPool(concurrency);
+        for (int t = 0; t < concurrency; t++) {
+            senders.submit(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < bodies.size()) {
+                    byte[] body = bodies.get(i).getBytes(StandardCharsets.UTF_8);
+                    HttpRequest request = HttpRequest.newBuilder(callbackUri)
+                            .header("Content-Type", "application/json")
+                            .header("x-paystack-signature", paymentCallbackService.sign(body))
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                            .build();
+                    long sent = System.nanoTime();
+                    try {
+                        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (status != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (IOException | InterruptedException e) {
+                        errors.incrementAndGet();
+                    }
+                    latenciesNanos[i] = System.nanoTime() - sent;
+                }
+            });
+        }
+        senders.shutdown();
+        try {
+            senders.awaitTermination(30, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        Arrays.sort(latenciesNanos);
+        System.out.println("========================================");
+        System.out.println("💳 STUB GATEWAY RESULTS");
+        System.out.printf("   Callbacks:  %d in %.1fs (%.0f/s), %d errors%n",
+                bodies.size(), seconds, bodies.size() / seconds, errors.get());
+        System.out.printf("   Latency:    p50 %.2fms, p99 %.2fms, p99.9 %.2fms, max %.2fms%n",
+                percentile(latenciesNanos, 50), percentile(latenciesNanos, 99),
+                percentile(latenciesNanos, 99.9), percentile(latenciesNanos, 100));
+        System.out.println("========================================");
+    }
+
+    private List<String> generateTraffic() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<String> bodies = new ArrayList<>(callbackCount);
+        List<String> references = new ArrayList<>();
+
+        for (int i = 0; i < callbackCount; i++) {
+            String reference;
+            if (!references.isEmpty() && random.nextInt(100) < duplicatePercent) {
+                reference = references.get(random.nextInt(references.size()));  // a retry
+            } else {
+                reference = UUID.randomUUID().toString();
+                references.add(reference);
+            }
+            boolean success = random.nextInt(100) < 95;
+            bodies.add("{\"event\":\"" + (success ? "charge.success" : "charge.failed") + "\","
+                     + "\"data\":{\"reference\":\"" + reference + "\","
+                     + "\"status\":\"" + (success ? "success" : "failed") + "\","
+                     + "\"amount\":" + (100 + random.nextInt(1_000_000)) + ","
+                     + "\"currency\":\"KES\",\"channel\":\"mobile_money\"}}");
+        }
+        return bodies;
+    }
+
+    private double percentile(long[] sortedNanos, double percent) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percent / 100.0 * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, Math.min(index, sortedNanos.length - 1))] / 1e6;
+    }
+}
@@ -0,0 +1,233 @@
+package com.goldcosmetics.service;
+
+import com.goldcosmetics.model.Role;
+import com.goldcosmetics.model.UserEvent;
+import com.goldcosmetics.model.UserEventType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User counts (per role, active/inactive) kept in memory from the user event journal.
+ *
+ * Built by replaying the journal at startup, then kept current by listening
+ * to new events - so counting users never needs a COUNT(*) query.
+ *
+ * Events are appended after the database commit, so a crash in between (or
+ * another app instance writing users) can leave the counts off. They are
+ * therefore reconciled with the users table on startup and every few minutes.
+ */
+@Component
+public class UserCountersView {
+
+    @Autowired
+    private UserEventJournal userEventJournal;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${goldcosmetics.user-events.reconcile-minutes:15}")
+    private long reconcileMinutes;
+
+    private static final class UserState {
+        Role role;
+        boolean active = true;
+    }
+
+    private final Map<Long, UserState> users = new HashMap<>();
+    private final EnumMap<Role, Long> byRole = new EnumMap<>(Role.class);
+    private long inactive;
+    private long lastApplied;
+
+    // Events applied while reconcile() reads the users table; replayed onto what it read
+    private List<UserEvent> appliedDuringReconcile;
+
+    private volatile boolean running;
+    private Thread reconciler;
+
+    @PostConstruct
+    public void start() {
+        userEventJournal.subscribe(this::apply);
+        rebuild();
+        reconcileQuietly();
+
+        running = true;
+        reconciler = new Thread(this::reconcileLoop, "user-counters-reconciler");
+        reconciler.setDaemon(true);
+        reconciler.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (reconciler != null) {
+            reconciler.interrupt();
+            reconciler.join(5000);
+        }
+    }
+
+    /**
+     * Throw everything away and replay the journal from the beginning
+     */
+    public synchronized void rebuild() {
+        users.clear();
+        byRole.clear();
+        inactive = 0;
+        lastApplied = 0;
+        userEventJournal.replay(this::apply);
+    }
+
+    /**
+     * Replace the counts with what the users table says, keeping any event
+     * that arrived while it was being read
+     */
+    public void reconcile() {
+        synchronized (this) {
+            appliedDuringReconcile = new ArrayList<>();
+        }
+
+        Map<Long, UserState> fresh = new HashMap<>();
+        try {
+            jdbcTemplate.query("select id, role, is_active from users", rs -> {
+                UserState state = new UserState();
+                state.role = Role.valueOf(rs.getString("role"));
+                state.active = rs.getBoolean("is_active");
+                fresh.put(rs.getLong("id"), state);
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                appliedDuringReconcile = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            long totalBefore = users.size();
+            EnumMap<Role, Long> byRoleBefore = new EnumMap<>(byRole);
+            byRoleBefore.values().removeIf(count -> count == 0);
+            long inactiveBefore = inactive;
+
+            users.clear();
+            byRole.clear();
+            inactive = 0;
+            fresh.forEach((id, state) -> {
+                users.put(id, state);
+                byRole.merge(state.role, 1L, Long::sum);
+                if (!state.active) {
+                    inactive++;
+                }
+            });
+            // Every change is "set to", so replaying one the table already shows is harmless
+            appliedDuringReconcile.forEach(this::applyState);
+            appliedDuringReconcile = null;
+
+            byRole.values().removeIf(count -> count == 0);
+            if (totalBefore != users.size() || inactiveBefore != inactive || !byRoleBefore.equals(byRole)) {
+                System.out.println("🔧 User counters corrected from the database: " + totalBefore + " -> "
+                                 + users.size() + " users, " + byRoleBefore + " -> " + byRole);
+            }
+        }
+    }
+
+    private void reconcileLoop() {
+        while (running) {
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(reconcileMinutes));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            reconcileQuietly();
+        }
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            System.out.println("⚠️ Could not reconcile user counters: " + e.getMessage());
+        }
+    }
+
+    public synchronized void apply(UserEvent event) {
+        // Already seen (a replay overlapping with live events)
+        if (event.sequence() <= lastApplied) {
+            return;
+        }
+        lastApplied = event.sequence();
+        if (appliedDuringReconcile != null) {
+            appliedDuringReconcile.add(event);
+        }
+        applyState(event);
+    }
+
+    private void applyState(UserEvent event) {
+        UserState state = users.get(event.userId());
+        switch (event.type()) {
+            case IMPORTED, REGISTERED -> {
+                if (state == null) {
+                    state = new UserState();
+                    users.put(event.userId(), state);
+                    changeRole(state, event.role());
+                }
+            }
+            case ROLE_CHANGED -> {
+                if (state != null) {
+                    changeRole(state, event.role());
+                }
+            }
+            case ACTIVATED, DEACTIVATED -> {
+                if (state != null) {
+                    boolean active = event.type() == UserEventType.ACTIVATED;
+                    if (state.active != active) {
+                        inactive += active ? -1 : 1;
+                        state.active = active;
+                    }
+                }
+            }
+            case DELETED -> {
+                if (state != null) {
+                    changeRole(state, null);
+                    if (!state.active) {
+                        inactive--;
+                    }
+                    users.remove(event.userId());
+                }
+            }
+            default -> {
+                // PASSWORD_CHANGED etc. don't affect counts
+            }
+        }
+    }
+
+    public synchronized long getTotalUsers() {
+        return users.size();
+    }
+
+    public synchronized long getCount(Role role) {
+        return byRole.getOrDefault(role, 0L);
+    }
+
+    public synchronized long getInactiveCount() {
+        return inactive;
+    }
+
+    private void changeRole(UserState state, Role newRole) {
+        if (state.role != null) {
+            byRole.merge(state.role, -1L, Long::sum);
+        }
+        state.role = newRole;
+        if (newRole != null) {
+            byRole.merge(newRole, 1L, Long::sum);
+        }
+    }
+}
@@ -0,0 +1,661 @@
+package com.goldcosmetics.service;
+
+import com.goldcosmetics.model.Role;
+import com.goldcosmetics.model.UserEvent;
+import com.goldcosmetics.model.UserEventType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of user account events, kept in memory-mapped segment files.
+ *
+ * Recording an event is a memory copy into the current segment - no database
+ * write on the request thread. UserEventProjector copies events into the
+ * user_events table in the background, and replay() lets in-memory views
+ * (counters, caches) rebuild themselves from the journal.
+ *
+ * Segments are named after their first sequence number and rolled when full.
+ * Segment header: [magic:int][unused:int][firstSequence:long][coveredThrough:long]
+ * Once a sealed segment is older than the retention period (and already in the
+ * database), compact() merges it into one segment that keeps only the events
+ * needed to rebuild current state: the latest event of each type per user, and
+ * nothing at all for deleted users.
+ *
+ * Record layout: [length:int][sequence:long][crc32:int][payload]
+ * Payload layout: [occurredAt:long][type:byte][userId:long][role:byte][username][shopLocation]
+ *   (type and role are fixed codes, see typeCode/roleCode, role -1 = null;
+ *    strings are [length:short][utf-8 bytes], length -1 = null)
+ */
+@Component
+public class UserEventJournal {
+
+    private static final int MAGIC = 0x47554A31;  // "GUJ1"
+    private static final int SEGMENT_HEADER_SIZE = 32;
+    private static final int RECORD_HEADER_SIZE = 4 + 8 + 4;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INSTANCE_ID_FILE = "instance-id";
+
+    @Value("${goldcosmetics.user-events.journal.dir:data/user-events}")
+    private String journalDir;
+
+    @Value("${goldcosmetics.user-events.journal.segment-size-mb:16}")
+    private int segmentSizeMb;
+
+    // Raw segments are kept this long before being compacted
+    @Value("${goldcosmetics.user-events.journal.retention-hours:168}")
+    private long retentionHours;
+
+    // Empty = make one up on first start and keep it in the journal directory
+    @Value("${goldcosmetics.user-events.instance-id:}")
+    private String configuredInstanceId;
+
+    private Path dir;
+
+    // Sequences are only unique per journal, so user_events rows are keyed by (instance, sequence)
+    private String instanceId;
+
+    // Guards the set of segments: appends/reads share it, roll/compaction change it
+    private final ReentrantReadWriteLock segmentsLock = new ReentrantReadWriteLock();
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    // Only touched by the single writer (inside append's lock)
+    private Segment active;
+    private long lastSequence;
+
+    // Highest sequence already copied to the database (set by the projector)
+    private volatile long projectedSequence;
+
+    private final List<Consumer<UserEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Where a reader has got to in the journal
+     */
+    public static final class Cursor {
+        private long afterSequence;
+        private Segment segment;
+        private int offset;
+
+        public Cursor(long afterSequence) {
+            this.afterSequence = afterSequence;
+        }
+
+        public long getAfterSequence() {
+            return afterSequence;
+        }
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        dir = Paths.get(journalDir);
+        Files.createDirectories(dir);
+        instanceId = loadInstanceId();
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(dir)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+
+        segmentsLock.writeLock().lock();
+        try {
+            long coveredThrough = 0;
+            for (Path file : files) {
+                Segment segment = Segment.open(file, segmentCapacity());
+                // Left over from a compaction that crashed half-way - already merged
+                if (!segments.isEmpty() && segment.firstSequence <= coveredThrough) {
+                    segment.close();
+                    Files.delete(file);
+                    continue;
+                }
+                coveredThrough = Math.max(coveredThrough, Math.max(segment.lastSequence, segment.coveredThrough));
+                if (active != null) {
+                    active.seal();
+                }
+                segments.put(segment.firstSequence, segment);
+                active = segment;
+                lastSequence = Math.max(lastSequence, segment.lastSequence);
+            }
+            if (active == null) {
+                active = createSegment(1);
+            }
+        } finally {
+            segmentsLock.writeLock().unlock();
+        }
+
+        System.out.println("📓 User event journal opened: " + segments.size() + " segments, last event #" + lastSequence
+                         + " (instance " + instanceId + ")");
+    }
+
+    /**
+     * Which app instance wrote this journal. Kept next to the segments so it
+     * stays the same across restarts, otherwise re-projected events would be
+     * saved twice.
+     */
+    private String loadInstanceId() throws IOException {
+        if (!configuredInstanceId.isBlank()) {
+            return configuredInstanceId.trim();
+        }
+        Path file = dir.resolve(INSTANCE_ID_FILE);
+        if (Files.exists(file)) {
+            String stored = Files.readString(file, StandardCharsets.UTF_8).trim();
+            if (!stored.isEmpty()) {
+                return stored;
+            }
+        }
+        String generated = UUID.randomUUID().toString();
+        Files.writeString(file, generated, StandardCharsets.UTF_8);
+        return generated;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Listen to every event as it is appended.
+     * Listeners run inside the append, so they must be quick and never block.
+     */
+    public void subscribe(Consumer<UserEvent> listener) {
+        subscribers.add(listener);
+    }
+
+    /**
+     * Append an event once the current transaction commits
+     */
+    public void appendAfterCommit(UserEvent event) {
+        TransactionHooks.afterCommit(() -> append(event));
+    }
+
+    /**
+     * Append an event and return it with its sequence number
+     */
+    public UserEvent append(UserEvent event) {
+        byte[] payload = encode(event);
+
+        synchronized (this) {
+            if (!active.hasRoomFor(payload.length)) {
+                roll();
+            }
+            UserEvent stored = event.withSequence(++lastSequence);
+            active.write(stored.sequence(), payload);
+
+            for (Consumer<UserEvent> subscriber : subscribers) {
+                try {
+                    subscriber.accept(stored);
+                } catch (RuntimeException e) {
+                    System.out.println("⚠️ User event listener failed: " + e.getMessage());
+                }
+            }
+            return stored;
+        }
+    }
+
+    public long getLastSequence() {
+        synchronized (this) {
+            return lastSequence;
+        }
+    }
+
+    public void setProjectedSequence(long sequence) {
+        projectedSequence = sequence;
+    }
+
+    public long getProjectedSequence() {
+        return projectedSequence;
+    }
+
+    /**
+     * Read up to max events after the cursor and move the cursor past them
+     */
+    public List<UserEvent> read(Cursor cursor, int max) {
+        List<UserEvent> events = new ArrayList<>();
+        segmentsLock.readLock().lock();
+        try {
+            // Segment gone (compacted) or first read - start at the segment holding the next event
+            if (cursor.segment == null || segments.get(cursor.segment.firstSequence) != cursor.segment) {
+                Map.Entry<Long, Segment> entry = segments.floorEntry(cursor.afterSequence + 1);
+                cursor.segment = entry != null ? entry.getValue() : segments.firstEntry().getValue();
+                cursor.offset = SEGMENT_HEADER_SIZE;
+            }
+
+            Segment segment = cursor.segment;
+            while (events.size() < max) {
+                int end = segment.publishedPosition;
+                if (cursor.offset + RECORD_HEADER_SIZE <= end) {
+                    ByteBuffer buffer = segment.buffer;
+                    int length = buffer.getInt(cursor.offset);
+                    long sequence = buffer.getLong(cursor.offset + 4);
+                    byte[] payload = new byte[length];
+                    buffer.get(cursor.offset + RECORD_HEADER_SIZE, payload);
+                    cursor.offset += RECORD_HEADER_SIZE + length;
+
+                    if (sequence > cursor.afterSequence) {
+                        events.add(decode(sequence, payload));
+                        cursor.afterSequence = sequence;
+                    }
+                    continue;
+                }
+
+                // End of this segment - move on if there is a newer one
+                Map.Entry<Long, Segment> next = segments.higherEntry(segment.firstSequence);
+                if (next == null || !segment.sealed) {
+                    break;
+                }
+                segment = next.getValue();
+                cursor.segment = segment;
+                cursor.offset = SEGMENT_HEADER_SIZE;
+            }
+        } finally {
+            segmentsLock.readLock().unlock();
+        }
+        return events;
+    }
+
+    /**
+     * Feed every event in the journal, oldest first, to the given view
+     *
+     * @return the sequence of the last event replayed
+     */
+    public long replay(Consumer<UserEvent> view) {
+        Cursor cursor = new Cursor(0);
+        List<UserEvent> batch;
+        while (!(batch = read(cursor, 10_000)).isEmpty()) {
+            batch.forEach(view);
+        }
+        return cursor.getAfterSequence();
+    }
+
+    /**
+     * Merge sealed segments that are past retention and already in the database
+     * into one segment holding just enough events to rebuild current state
+     */
+    public void compact() throws IOException {
+        Instant cutoff = Instant.now().minus(Duration.ofHours(retentionHours));
+
+        // Segments to merge: a run of old, sealed, projected segments from the start
+        List<Segment> inputs = new ArrayList<>();
+        segmentsLock.readLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                if (!segment.sealed || segment.lastSequence > projectedSequence
+                        || Files.getLastModifiedTime(segment.path).toInstant().isAfter(cutoff)) {
+                    break;
+                }
+                inputs.add(segment);
+            }
+        } finally {
+            segmentsLock.readLock().unlock();
+        }
+        if (inputs.size() < 2 && (inputs.isEmpty() || inputs.get(0).coveredThrough > 0)) {
+            return;
+        }
+
+        // STEP 1: Work out which events still matter
+        List<long[]> all = new ArrayList<>();       // [sequence, userId, type]
+        Map<Long, Map<UserEventType, Long>> latest = new HashMap<>();  // userId -> type -> sequence
+        Set<Long> deletedUsers = new HashSet<>();
+        for (Segment segment : inputs) {
+            segment.forEachRecord((sequence, payload) -> {
+                UserEvent event = decode(sequence, payload);
+                latest.computeIfAbsent(event.userId(), id -> new HashMap<>()).put(event.type(), sequence);
+                if (event.type() == UserEventType.DELETED) {
+                    deletedUsers.add(event.userId());
+                } else if (event.type() == UserEventType.REGISTERED || event.type() == UserEventType.IMPORTED) {
+                    deletedUsers.remove(event.userId());
+                }
+            });
+        }
+        Set<Long> keep = new HashSet<>();
+        latest.forEach((userId, byType) -> {
+            if (!deletedUsers.contains(userId)) {
+                keep.addAll(byType.values());
+            }
+        });
+
+        // STEP 2: Write them to a new segment next to the old ones
+        Segment first = inputs.get(0);
+        Segment last = inputs.get(inputs.size() - 1);
+        int mergedCapacity = segmentCapacity();
+        long inputBytes = 0;
+        for (Segment segment : inputs) {
+            inputBytes += segment.writePosition;
+        }
+        mergedCapacity = (int) Math.min(Integer.MAX_VALUE, Math.max(mergedCapacity, inputBytes + SEGMENT_HEADER_SIZE));
+
+        Path temp = dir.resolve(first.path.getFileName() + ".compacting");
+        Files.deleteIfExists(temp);
+        Segment merged = Segment.create(temp, first.firstSequence, mergedCapacity);
+        // Lets open() spot the old segments if we crash before deleting them
+        merged.setCoveredThrough(Math.max(last.lastSequence, last.coveredThrough));
+        int[] kept = { 0 };
+        for (Segment segment : inputs) {
+            segment.forEachRecord((sequence, payload) -> {
+                if (keep.contains(sequence)) {
+                    merged.write(sequence, payload);
+                    kept[0]++;
+                }
+            });
+        }
+        merged.seal();
+        merged.close();
+
+        // STEP 3: Swap it in
+        segmentsLock.writeLock().lock();
+        try {
+            for (Segment segment : inputs) {
+                segments.remove(segment.firstSequence);
+                segment.close();
+            }
+            Files.move(temp, first.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            for (Segment segment : inputs.subList(1, inputs.size())) {
+                Files.deleteIfExists(segment.path);
+            }
+            Segment reopened = Segment.open(first.path, segmentCapacity());
+            reopened.seal();
+            segments.put(reopened.firstSequence, reopened);
+        } finally {
+            segmentsLock.writeLock().unlock();
+        }
+
+        System.out.println("🗜️ Compacted " + inputs.size() + " user event segments: kept " + kept[0] + " events");
+    }
+
+    @PreDestroy
+    public void close() {
+        segmentsLock.writeLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+            segments.clear();
+        } finally {
+            segmentsLock.writeLock().unlock();
+        }
+    }
+
+    // Called with the append lock held
+    private void roll() {
+        segmentsLock.writeLock().lock();
+        try {
+            active.seal();
+            active = createSegment(lastSequence + 1);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not roll user event journal", e);
+        } finally {
+            segmentsLock.writeLock().unlock();
+        }
+    }
+
+    // Called with the segments write lock held
+    private Segment createSegment(long firstSequence) throws IOException {
+        Path file = dir.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX));
+        Segment segment = Segment.create(file, firstSequence, segmentCapacity());
+        segments.put(firstSequence, segment);
+        return segment;
+    }
+
+    private int segmentCapacity() {
+        return segmentSizeMb * 1024 * 1024;
+    }
+
+    // =======================================================================
+    // ENCODING
+    // =======================================================================
+
+    static byte[] encode(UserEvent event) {
+        byte[] username = event.username() == null ? null : event.username().getBytes(StandardCharsets.UTF_8);
+        byte[] shop = event.shopLocation() == null ? null : event.shopLocation().getBytes(StandardCharsets.UTF_8);
+        int size = 8 + 1 + 8 + 1 + 2 + (username == null ? 0 : username.length) + 2 + (shop == null ? 0 : shop.length);
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putLong(event.occurredAt());
+        buffer.put(typeCode(event.type()));
+        buffer.putLong(event.userId());
+        buffer.put(event.role() == null ? -1 : roleCode(event.role()));
+        putString(buffer, username);
+        putString(buffer, shop);
+        return buffer.array();
+    }
+
+    static UserEvent decode(long sequence, byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        long occurredAt = buffer.getLong();
+        UserEventType type = typeOf(buffer.get());
+        long userId = buffer.getLong();
+        byte role = buffer.get();
+        String username = getString(buffer);
+        String shop = getString(buffer);
+        return new UserEvent(sequence, occurredAt, type, userId, username,
+                             role < 0 ? null : roleOf(role), shop);
+    }
+
+    // Fixed codes for the types and roles on disk. They match the enum order the
+    // first segments were written with and must never change or be reused -
+    // reordering or renaming the enums is safe, a new value needs a new code here.
+
+    static byte typeCode(UserEventType type) {
+        return switch (type) {
+            case IMPORTED -> 0;
+            case REGISTERED -> 1;
+            case ROLE_CHANGED -> 2;
+            case ACTIVATED -> 3;
+            case DEACTIVATED -> 4;
+            case DELETED -> 5;
+            case PASSWORD_CHANGED -> 6;
+            case LOGGED_IN -> 7;
+        };
+    }
+
+    static UserEventType typeOf(byte code) {
+        return switch (code) {
+            case 0 -> UserEventType.IMPORTED;
+            case 1 -> UserEventType.REGISTERED;
+            case 2 -> UserEventType.ROLE_CHANGED;
+            case 3 -> UserEventType.ACTIVATED;
+            case 4 -> UserEventType.DEACTIVATED;
+            case 5 -> UserEventType.DELETED;
+            case 6 -> UserEventType.PASSWORD_CHANGED;
+            case 7 -> UserEventType.LOGGED_IN;
+            default -> throw new IllegalStateException("Unknown user event type code " + code);
+        };
+    }
+
+    static byte roleCode(Role role) {
+        return switch (role) {
+            case CUSTOMER -> 0;
+            case EMPLOYEE -> 1;
+            case ADMIN -> 2;
+        };
+    }
+
+    static Role roleOf(byte code) {
+        return switch (code) {
+            case 0 -> Role.CUSTOMER;
+            case 1 -> Role.EMPLOYEE;
+            case 2 -> Role.ADMIN;
+            default -> throw new IllegalStateException("Unknown role code " + code);
+        };
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) value.length);
+            buffer.put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // =======================================================================
+    // SEGMENT FILE
+    // =======================================================================
+
+    private static final class Segment {
+
+        final Path path;
+        final long firstSequence;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+
+        int writePosition;
+        long lastSequence;
+
+        // Readers only look below this; volatile so they see complete records
+        volatile int publishedPosition;
+        volatile boolean sealed;
+
+        // Set on compacted segments: last sequence of the segments merged into it
+        long coveredThrough;
+
+        private Segment(Path path, long firstSequence, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.firstSequence = firstSequence;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment create(Path path, long firstSequence, int capacity) throws IOException {
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            buffer.putInt(0, MAGIC);
+            buffer.putLong(8, firstSequence);
+            buffer.putLong(16, 0);
+            buffer.putInt(SEGMENT_HEADER_SIZE, 0);
+
+            Segment segment = new Segment(path, firstSequence, channel, buffer);
+            segment.writePosition = SEGMENT_HEADER_SIZE;
+            segment.publishedPosition = SEGMENT_HEADER_SIZE;
+            segment.lastSequence = firstSequence - 1;
+            return segment;
+        }
+
+        static Segment open(Path path, int capacity) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                                                  Math.max(capacity, channel.size()));
+            if (buffer.getInt(0) != MAGIC) {
+                channel.close();
+                throw new IOException("Not a user event segment: " + path);
+            }
+
+            Segment segment = new Segment(path, buffer.getLong(8), channel, buffer);
+            segment.coveredThrough = buffer.getLong(16);
+            segment.writePosition = SEGMENT_HEADER_SIZE;
+            segment.lastSequence = segment.firstSequence - 1;
+
+            // Find the end: stop at the end marker or at a torn/damaged record
+            segment.forEachRecord((sequence, payload) -> segment.lastSequence = sequence);
+            segment.publishedPosition = segment.writePosition;
+            return segment;
+        }
+
+        void setCoveredThrough(long sequence) {
+            coveredThrough = sequence;
+            buffer.putLong(16, sequence);
+        }
+
+        boolean hasRoomFor(int payloadLength) {
+            // Keep 4 bytes for the end marker
+            return writePosition + RECORD_HEADER_SIZE + payloadLength + 4 <= buffer.capacity();
+        }
+
+        void write(long sequence, byte[] payload) {
+            int pos = writePosition;
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+
+            buffer.putInt(pos, payload.length);
+            buffer.putLong(pos + 4, sequence);
+            buffer.putInt(pos + 12, (int) crc.getValue());
+            buffer.put(pos + RECORD_HEADER_SIZE, payload);
+            buffer.putInt(pos + RECORD_HEADER_SIZE + payload.length, 0);
+
+            writePosition = pos + RECORD_HEADER_SIZE + payload.length;
+            lastSequence = sequence;
+            publishedPosition = writePosition;
+        }
+
+        interface RecordVisitor {
+            void visit(long sequence, byte[] payload);
+        }
+
+        /**
+         * Walk the valid records from the start; also moves writePosition to the end
+         */
+        void forEachRecord(RecordVisitor visitor) {
+            int pos = SEGMENT_HEADER_SIZE;
+            while (pos + RECORD_HEADER_SIZE <= buffer.capacity()) {
+                int length = buffer.getInt(pos);
+                if (length <= 0 || pos + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+                    break;
+                }
+                long sequence = buffer.getLong(pos + 4);
+                int storedCrc = buffer.getInt(pos + 12);
+                byte[] payload = new byte[length];
+                buffer.get(pos + RECORD_HEADER_SIZE, payload);
+
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != storedCrc) {
+                    break;
+                }
+                visitor.visit(sequence, payload);
+                pos += RECORD_HEADER_SIZE + length;
+            }
+            if (!sealed) {
+                writePosition = Math.max(writePosition, pos);
+            }
+        }
+
+        void seal() {
+            sealed = true;
+            buffer.force();
+        }
+
+        void close() {
+            try {
+                buffer.force();
+                channel.close();
+            } catch (IOException e) {
+                System.out.println("⚠️ Could not close " + path + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.goldcosmetics.service;
+
+import com.goldcosmetics.model.User;
+import com.goldcosmetics.model.UserEvent;
+import com.goldcosmetics.model.UserEventType;
+import com.goldcosmetics.repository.UserEventLogRepository;
+import com.goldcosmetics.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copies user events from the journal into the user_events table in batches,
+ * and compacts old journal segments once they are safely in the database.
+ */
+@Component
+public class UserEventProjector {
+
+    private static final String INSERT_SQL =
+            "insert into user_events (instance_id, sequence, event_type, user_id, username, role, shop_location, occurred_at) "
+          + "values (?, ?, ?, ?, ?, ?, ?, ?) on conflict (instance_id, sequence) do nothing";
+
+    private static final long IDLE_WAIT_MS = 200;
+    private static final long MAX_BACKOFF_MS = 10_000;
+    private static final long COMPACTION_INTERVAL_MS = 60 * 60_000;
+
+    @Autowired
+    private UserEventJournal userEventJournal;
+
+    @Autowired
+    private UserEventLogRepository userEventLogRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${goldcosmetics.user-events.batch-size:1000}")
+    private int batchSize;
+
+    private volatile boolean running;
+    private Thread projector;
+
+    @PostConstruct
+    public void start() {
+        importExistingUsers();
+
+        running = true;
+        projector = new Thread(this::projectLoop, "user-event-projector");
+        projector.setDaemon(true);
+        projector.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (projector != null) {
+            projector.interrupt();
+            projector.join(5000);
+        }
+    }
+
+    /**
+     * First start with an empty journal: record the users that already exist,
+     * so replayed views start from the real numbers
+     */
+    private void importExistingUsers() {
+        if (userEventJournal.getLastSequence() > 0) {
+            return;
+        }
+        List<User> existing = userRepository.findAll();
+        for (User user : existing) {
+            userEventJournal.append(UserEvent.of(UserEventType.IMPORTED, user));
+            if (Boolean.FALSE.equals(user.getIsActive())) {
+                userEventJournal.append(UserEvent.of(UserEventType.DEACTIVATED, user));
+            }
+        }
+        if (!existing.isEmpty()) {
+            System.out.println("📓 Imported " + existing.size() + " existing users into the user event journal");
+        }
+    }
+
+    private void projectLoop() {
+        UserEventJournal.Cursor cursor = null;
+        long backoffMs = IDLE_WAIT_MS;
+        long nextCompaction = System.currentTimeMillis() + COMPACTION_INTERVAL_MS;
+
+        while (running) {
+            try {
+                // Where we got to last time - retried like everything else if the database is down
+                if (cursor == null) {
+                    try {
+                        cursor = new UserEventJournal.Cursor(
+                                userEventLogRepository.findLastSequence(userEventJournal.getInstanceId()));
+                        userEventJournal.setProjectedSequence(cursor.getAfterSequence());
+                    } catch (RuntimeException e) {
+                        System.out.println("⚠️ Could not read the last saved user event: " + e.getMessage());
+                        Thread.sleep(backoffMs);
+                        backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+                        continue;
+                    }
+                }
+
+                List<UserEvent> batch = userEventJournal.read(cursor, batchSize);
+                if (!batch.isEmpty()) {
+                    insertWithRetry(batch);
+                    userEventJournal.setProjectedSequence(batch.get(batch.size() - 1).sequence());
+                } else {
+                    Thread.sleep(IDLE_WAIT_MS);
+                }
+
+                if (System.currentTimeMillis() >= nextCompaction) {
+                    compactQuietly();
+                    nextCompaction = System.currentTimeMillis() + COMPACTION_INTERVAL_MS;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void insertWithRetry(List<UserEvent> batch) throws InterruptedException {
+        long backoffMs = IDLE_WAIT_MS;
+        while (true) {
+            try {
+                insert(batch);
+                return;
+            } catch (RuntimeException e) {
+                System.out.println("⚠️ Saving " + batch.size() + " user events failed: " + e.getMessage());
+            }
+            Thread.sleep(backoffMs);
+            backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        }
+    }
+
+    private void insert(List<UserEvent> batch) {
+        String instanceId = userEventJournal.getInstanceId();
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (UserEvent event : batch) {
+            rows.add(new Object[] {
+                    instanceId, event.sequence(), event.type().name(), event.userId(), event.username(),
+                    event.role() == null ? null : event.role().name(), event.shopLocation(),
+                    new Timestamp(event.occurredAt()) });
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, rows));
+    }
+
+    private void compactQuietly() {
+        try {
+            userEventJournal.compact();
+        } catch (IOException | RuntimeException e) {
+            System.out.println("⚠️ User event journal compaction failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.goldcosmetics.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.goldcosmetics.dto.UserView;
+import com.goldcosmetics.model.Role;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * User lists for the admin API, without building a List of entities.
+ *
+ * listTag() hashes the matching ids and versions in one aggregate query, so
+ * a client that already has the list gets a 304 without any user being sent. writeList() reads rows through a database cursor and writes
+ * each one as JSON straight to the response, so memory stays flat however
+ * many users there are.
+ */
+@Service
+public class UserListStreamer {
+
+    private static final int FETCH_SIZE = 500;
+
+    private static final String COLUMNS =
+            "id, username, email, full_name, phone, role, shop_location, delivery_address, "
+          + "is_active, created_at, updated_at, version";
+
+    private record Filter(String where, Object[] args) {
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private JdbcTemplate cursorJdbc;
+    private TransactionTemplate readOnly;
+    private ObjectWriter rowWriter;
+
+    @PostConstruct
+    public void start() {
+        // PostgreSQL only streams with a fetch size inside a transaction
+        cursorJdbc = new JdbcTemplate(dataSource);
+        cursorJdbc.setFetchSize(FETCH_SIZE);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        rowWriter = objectMapper.writerFor(UserView.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Strong ETag for the list: an md5 of every matching "id.version" in id
+     * order. Any insert, delete or update (which bumps a version) changes it -
+     * unlike sums, two different lists cannot add up to the same tag. A login
+     * does not: the last login time is not part of UserView.
+     *
+     * Take the tag before writing the list: if a change lands in between, the
+     * client caches newer data under an older tag and simply gets a 200 next time.
+     */
+    public String listTag(Role role, Boolean active) {
+        Filter filter = filter(role, active);
+        return cursorJdbc.queryForObject(
+                "select count(*), coalesce(md5(string_agg(id || '.' || version, ',' order by id)), '') "
+              + "from users" + filter.where(),
+                (rs, rowNum) -> "\"users-" + rs.getLong(1) + "-" + rs.getString(2) + "\"",
+                filter.args());
+    }
+
+    /**
+     * Write the users as one JSON array, ordered by id
+     */
+    public void writeList(Role role, Boolean active, OutputStream out) throws IOException {
+        Filter filter = filter(role, active);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartArray();
+        try {
+            readOnly.executeWithoutResult(status -> cursorJdbc.query(
+                    "select " + COLUMNS + " from users" + filter.where() + " order by id",
+                    rs -> {
+                        try {
+                            rowWriter.writeValue(generator, toView(rs));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    },
+                    filter.args()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();  // Usually the client went away
+        }
+        generator.writeEndArray();
+        generator.close();
+    }
+
+    private static Filter filter(Role role, Boolean active) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        if (role != null) {
+            conditions.add("role = ?");
+            args.add(role.name());
+        }
+        if (active != null) {
+            conditions.add("is_active = ?");
+            args.add(active);
+        }
+        String where = conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+        return new Filter(where, args.toArray());
+    }
+
+    private static UserView toView(ResultSet rs) throws SQLException {
+        return UserView.builder()
+                .id(rs.getLong("id"))
+                .username(rs.getString("username"))
+                .email(rs.getString("email"))
+                .fullName(rs.getString("full_name"))
+                .phone(rs.getString("phone"))
+                .role(Role.valueOf(rs.getString("role")))
+                .shopLocation(rs.getString("shop_location"))
+                .deliveryAddress(rs.getString("delivery_address"))
+                .active(rs.getBoolean("is_active"))
+                .createdAt(toLocalDateTime(rs.getTimestamp("created_at")))
+                .updatedAt(toLocalDateTime(rs.getTimestamp("updated_at")))
+                .version(rs.getLong("version"))
+                .build();
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -2,13 +2,23 @@ package com.goldcosmetics.service;
 
 import com.goldcosmetics.model.User;
 import com.goldcosmetics.model.Role;
+import com.goldcosmetics.model.UserEvent;
+import com.goldcosmetics.model.UserEventType;
 import com.goldcosmetics.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 
@@ -22,6 +32,18 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private CustomerSearchService customerSearchService;
+
+    @Autowired
+    private UserEventJournal userEventJournal;
+
+    @Autowired
+    private UserCountersView userCountersView;
+
+    @Autowired
+    private NotificationOutbox notificationOutbox;
+
     public User registerUser(User user) {
         
         // STEP 1: Check if username already exists
@@ -50,6 +72,9 @@ public class UserService {
         
         // STEP 5: Save to database and return
         User savedUser = userRepository.save(user);
+        customerSearchService.indexAfterCommit(savedUser);
+        userEventJournal.appendAfterCommit(UserEvent.of(UserEventType.REGISTERED, savedUser));
+        notificationOutbox.queueWelcome(savedUser);  // sent in the background after commit
         
         System.out.println("✅ New user registered: " + savedUser.getUsername() 
                          + " (ID: " + savedUser.getId() + ")");
@@ -151,9 +176,16 @@ public class UserService {
     }
 
     public User updateUser(Long userId, User updatedUser) {
+        return updateUser(userId, updatedUser, null);
+    }
+
+    /**
+     * Update profile fields, but only if the user is still at expectedVersion
+     * (null = don't check)
+     */
+    public User updateUser(Long userId, User updatedUser, Long expectedVersion) {
         
-        User existingUser = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
+        User existingUser = loadForUpdate(userId, expectedVersion);
         
         // Update allowed fields
         if (updatedUser.getFullName() != null) {
@@ -166,8 +198,10 @@ public class UserService {
             existingUser.setDeliveryAddress(updatedUser.getDeliveryAddress());
         }
         
-        // Save and return
-        return userRepository.save(existingUser);
+        // Save (and flush, so the new version is known) and return
+        User savedUser = userRepository.saveAndFlush(existingUser);
+        customerSearchService.indexAfterCommit(savedUser);
+        return savedUser;
     }
 
     public boolean changePassword(Long userId, String oldPassword, String newPassword) {
@@ -183,75 +217,133 @@ public class UserService {
         // Encrypt and save new password
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        userEventJournal.appendAfterCommit(UserEvent.of(UserEventType.PASSWORD_CHANGED, user));
+        notificationOutbox.queuePasswordChanged(user);
         
         System.out.println("✅ Password changed for user: " + user.getUsername());
         return true;
     }
 
-    public void updateLastLogin(String username) {
-        Optional<User> userOpt = userRepository.findByUsername(username);
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            user.setLastLoginAt(LocalDateTime.now());
-            userRepository.save(user);
+    /**
+     * Save a batch of logins (from LoginRecorder): one lookup for all users,
+     * the latest login time per user and one LOGGED_IN event per login.
+     * The login time is written with its own update, so logging in does not
+     * change the user's version or ETag.
+     */
+    public void recordLogins(List<LoginRecorder.Login> logins) {
+        Map<String, List<Long>> timesByUser = new HashMap<>();
+        for (LoginRecorder.Login login : logins) {
+            timesByUser.computeIfAbsent(login.username(), name -> new ArrayList<>()).add(login.loggedInAt());
+        }
+
+        for (User user : userRepository.findByUsernameIn(timesByUser.keySet())) {
+            List<Long> times = timesByUser.get(user.getUsername());
+            long latest = Collections.max(times);
+            userRepository.updateLastLoginAt(user.getUsername(),
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(latest), ZoneId.systemDefault()));
+            for (long time : times) {
+                userEventJournal.appendAfterCommit(UserEvent.of(UserEventType.LOGGED_IN, user, time));
+            }
         }
     }
     
     public void activateUser(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        user.setIsActive(true);  
-        userRepository.save(user);
-        System.out.println("✅ User activated: " + user.getUsername());
+        setActive(userId, true, null);
     }
 
     public void deactivateUser(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        user.setIsActive(true);  
-        userRepository.save(user);
-        System.out.println("⛔ User deactivated: " + user.getUsername());
+        setActive(userId, false, null);
+    }
+
+    /**
+     * Activate or deactivate, but only if the user is still at expectedVersion (null = don't check)
+     */
+    public User setActive(Long userId, boolean active, Long expectedVersion) {
+        User user = loadForUpdate(userId, expectedVersion);
+        user.setIsActive(active);
+        User savedUser = userRepository.saveAndFlush(user);
+        if (active) {
+            userEventJournal.appendAfterCommit(UserEvent.of(UserEventType.ACTIVATED, savedUser));
+            System.out.println("✅ User activated: " + savedUser.getUsername());
+        } else {
+            userEventJournal.appendAfterCommit(UserEvent.of(UserEventType.DEACTIVATED, savedUser));
+            System.out.println("⛔ User deactivated: " + savedUser.getUsername());
+        }
+        return savedUser;
     }
 
     public void deleteUser(Long userId) {
         userRepository.deleteById(userId);
+        customerSearchService.removeAfterCommit(userId);
+        userEventJournal.appendAfterCommit(UserEvent.of(UserEventType.DELETED, userId));
         System.out.println("🗑️ User deleted: ID " + userId);
     }
 
     public void changeUserRole(Long userId, Role newRole) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        changeUserRole(userId, newRole, null);
+    }
+
+    /**
+     * Change role, but only if the user is still at expectedVersion (null = don't check)
+     */
+    public User changeUserRole(Long userId, Role newRole, Long expectedVersion) {
+        User user = loadForUpdate(userId, expectedVersion);
         user.setRole(newRole);
-        userRepository.save(user);
-        System.out.println("✅ Role changed for " + user.getUsername() + " to " + newRole);
+        User savedUser = userRepository.saveAndFlush(user);
+        customerSearchService.indexAfterCommit(savedUser);  // drops them from customer search if no longer a customer
+        userEventJournal.appendAfterCommit(UserEvent.of(UserEventType.ROLE_CHANGED, savedUser));
+        System.out.println("✅ Role changed for " + savedUser.getUsername() + " to " + newRole);
+        return savedUser;
+    }
+
+    /**
+     * Current version of a user without loading the whole row (empty if not found)
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> findVersion(Long userId) {
+        return userRepository.findVersionById(userId);
     }
    
+    private User loadForUpdate(Long userId, Long expectedVersion) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new NoSuchElementException("User not found with ID: " + userId));
+        // Someone changed it since the caller read it. If that happens after this
+        // check, Hibernate's version check on save fails the same way.
+        if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+            throw new OptimisticLockingFailureException("User " + userId + " has changed (now version "
+                                                        + user.getVersion() + ")");
+        }
+        return user;
+    }
+
     /**
      * Count total users
+     * 
+     * Counts come from the in-memory view built from the user event journal - no COUNT(*) query
      */
     public long getTotalUsers() {
-        return userRepository.count();
+        return userCountersView.getTotalUsers();
     }
     
     /**
      * Count customers
      */
     public long getTotalCustomers() {
-        return userRepository.countByRole(Role.CUSTOMER);
+        return userCountersView.getCount(Role.CUSTOMER);
     }
     
     /**
      * Count employees
      */
     public long getTotalEmployees() {
-        return userRepository.countByRole(Role.EMPLOYEE);
+        return userCountersView.getCount(Role.EMPLOYEE);
     }
     
     /**
      * Count admins
      */
     public long getTotalAdmins() {
-        return userRepository.countByRole(Role.ADMIN);
+        return userCountersView.getCount(Role.ADMIN);
     }
 
 }
\ No newline at end of file
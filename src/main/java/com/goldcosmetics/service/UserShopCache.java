@@ -0,0 +1,56 @@
+package com.goldcosmetics.service;
+
+import com.goldcosmetics.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Which shop a signed-in user works at, remembered for a short while.
+ *
+ * Till search asks on every keystroke and dashboards on every load, and a
+ * user's shop rarely changes - not worth a users query each time.
+ */
+@Service
+public class UserShopCache {
+
+    @Autowired
+    private UserService userService;
+
+    @Value("${goldcosmetics.users.shop-cache-seconds:60}")
+    private long ttlSeconds;
+
+    // Expired entries are cleared out once the cache grows past this
+    @Value("${goldcosmetics.users.shop-cache-max-entries:10000}")
+    private int maxEntries;
+
+    // shopLocation is null for users without a shop (the map itself can't hold null)
+    private record Entry(String shopLocation, long expiresAtNanos) {
+        boolean isFresh(long nowNanos) {
+            return nowNanos - expiresAtNanos < 0;
+        }
+    }
+
+    private final Map<String, Entry> shops = new ConcurrentHashMap<>();
+
+    /**
+     * The user's shop, or null if they have none (or do not exist)
+     */
+    public String getShop(String username) {
+        long now = System.nanoTime();
+        Entry entry = shops.get(username);
+        if (entry != null && entry.isFresh(now)) {
+            return entry.shopLocation();
+        }
+
+        String shop = userService.findByUsername(username).map(User::getShopLocation).orElse(null);
+        shops.put(username, new Entry(shop, now + TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        if (shops.size() > maxEntries) {
+            shops.values().removeIf(cached -> !cached.isFresh(now));
+        }
+        return shop;
+    }
+}
@@ -0,0 +1,21 @@
+-- =======================================================================
+-- V1: the users table, as the app first created it
+-- =======================================================================
+-- Databases that already have it (made by ddl-auto=update) skip this script:
+-- Flyway marks them as version 1 (see application.properties).
+
+create table users (
+    id               bigserial    primary key,
+    username         varchar(50)  not null unique,
+    email            varchar(255) not null unique,
+    password         varchar(255) not null,
+    full_name        varchar(100) not null,
+    phone            varchar(20),
+    role             varchar(255) not null,
+    shop_location    varchar(50),
+    delivery_address varchar(255),
+    is_active        boolean      not null,
+    created_at       timestamp(6) not null,
+    updated_at       timestamp(6) not null,
+    last_login_at    timestamp(6)
+);
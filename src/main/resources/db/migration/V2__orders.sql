@@ -0,0 +1,42 @@
+-- =======================================================================
+-- V2: web orders (OrderIngestionService)
+-- =======================================================================
+
+-- Ids are handed out 50 at a time (allocationSize in CustomerOrder / OrderItem)
+create sequence orders_seq increment by 50;
+create sequence order_items_seq increment by 50;
+
+create table orders (
+    id                bigint        primary key,
+    order_reference   varchar(36)   not null unique,
+    customer_username varchar(50)   not null,
+    shop_location     varchar(50)   not null,
+    delivery_address  varchar(255),
+    status            varchar(255)  not null,
+    payment_status    varchar(255)  not null,
+    total_amount      numeric(12,2) not null,
+    placed_at         timestamp(6)  not null,
+    created_at        timestamp(6)  not null,
+    updated_at        timestamp(6)  not null
+);
+
+create table order_items (
+    id           bigint        primary key,
+    order_id     bigint        not null references orders (id),
+    product_sku  varchar(50)   not null,
+    product_name varchar(100)  not null,
+    quantity     integer       not null,
+    unit_price   numeric(12,2) not null
+);
+
+-- Accepted orders that could not be saved (or read back from the journal),
+-- kept for staff to look at
+create table order_dead_letters (
+    id                bigserial    primary key,
+    order_reference   varchar(36)  not null unique,
+    customer_username varchar(50),
+    shop_location     varchar(50),
+    payload           text         not null,
+    error             varchar(500),
+    failed_at         timestamp(6) not null
+);
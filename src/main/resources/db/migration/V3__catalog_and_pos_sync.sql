@@ -0,0 +1,48 @@
+-- =======================================================================
+-- V3: product catalog, till sales and shop stock (ProductService, PosSyncService)
+-- =======================================================================
+
+-- Every product save takes the next catalog version; tills sync from there
+create sequence catalog_version_seq;
+
+create table products (
+    id              bigserial     primary key,
+    sku             varchar(50)   not null unique,
+    name            varchar(100)  not null,
+    category        varchar(50),
+    price           numeric(12,2) not null,
+    is_active       boolean       not null,
+    catalog_version bigint        not null,
+    created_at      timestamp(6)  not null,
+    updated_at      timestamp(6)  not null
+);
+create index idx_products_catalog_version on products (catalog_version);
+
+create table pos_sales (
+    id                bigserial     primary key,
+    client_sale_id    varchar(36)   not null unique,
+    employee_username varchar(50)   not null,
+    shop_location     varchar(50)   not null,
+    total_amount      numeric(12,2) not null,
+    sold_at           timestamp(6)  not null,
+    synced_at         timestamp(6)  not null
+);
+
+create table pos_sale_items (
+    id             bigserial     primary key,
+    client_sale_id varchar(36)   not null,
+    product_sku    varchar(50)   not null,
+    quantity       integer       not null,
+    unit_price     numeric(12,2) not null
+);
+create index idx_pos_sale_items_sale on pos_sale_items (client_sale_id);
+
+-- Till sales and web orders both subtract from here
+create table shop_stock (
+    id            bigserial    primary key,
+    shop_location varchar(50)  not null,
+    product_sku   varchar(50)  not null,
+    quantity      integer      not null,
+    updated_at    timestamp(6) not null,
+    constraint uk_shop_stock_shop_sku unique (shop_location, product_sku)
+);
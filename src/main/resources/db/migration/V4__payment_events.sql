@@ -0,0 +1,24 @@
+-- =======================================================================
+-- V4: payment gateway callbacks (PaymentCallbackService)
+-- =======================================================================
+
+-- One transaction can report several events (failed, then success, then a
+-- refund); only an exact repeat is a duplicate
+create table payment_events (
+    id                    bigserial    primary key,
+    transaction_reference varchar(100) not null,
+    event_type            varchar(50)  not null,
+    payment_status        varchar(255) not null,
+    amount                bigint,
+    received_at           timestamp(6) not null,
+    constraint uk_payment_events_event unique (transaction_reference, event_type, payment_status)
+);
+
+-- Signed callbacks the database refused, kept for staff to look at
+create table payment_dead_letters (
+    id                    bigserial    primary key,
+    transaction_reference varchar(100),
+    payload               text         not null,
+    error                 varchar(500),
+    failed_at             timestamp(6) not null
+);
@@ -0,0 +1,19 @@
+-- =======================================================================
+-- V5: account changes copied from the user event journal (UserEventPersister)
+-- =======================================================================
+
+-- Each instance numbers its own journal, so a sequence is only unique per instance
+create table user_events (
+    id            bigserial    primary key,
+    instance_id   varchar(64)  not null,
+    sequence      bigint       not null,
+    event_type    varchar(30)  not null,
+    user_id       bigint       not null,
+    username      varchar(50),
+    role          varchar(20),
+    shop_location varchar(50),
+    occurred_at   timestamp(6) not null,
+    constraint uk_user_events_instance_sequence unique (instance_id, sequence)
+);
+
+create index idx_user_events_user on user_events (user_id);
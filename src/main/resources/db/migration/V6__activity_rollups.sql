@@ -0,0 +1,17 @@
+-- =======================================================================
+-- V6: hour/day activity counts (ActivityRollupService)
+-- =======================================================================
+
+-- Each app instance saves the counts from its own journal; charts add them up
+create table activity_rollups (
+    id            bigserial    primary key,
+    metric        varchar(20)  not null,
+    resolution    varchar(10)  not null,
+    bucket_start  timestamp(6) not null,
+    shop_location varchar(50)  not null,
+    role          varchar(20)  not null,
+    instance_id   varchar(64)  not null,
+    count         bigint       not null,
+    constraint uk_activity_rollups_bucket
+        unique (metric, resolution, bucket_start, shop_location, role, instance_id)
+);
@@ -0,0 +1,22 @@
+-- =======================================================================
+-- V7: emails and SMS waiting to be sent (NotificationOutbox / NotificationDispatcher)
+-- =======================================================================
+
+create table notification_outbox (
+    id              bigserial    primary key,
+    channel         varchar(10)  not null,
+    type            varchar(40)  not null,
+    recipient       varchar(255) not null,
+    subject         varchar(200),
+    body            text         not null,
+    status          varchar(10)  not null,
+    attempts        integer      not null,
+    next_attempt_at timestamp(6) not null,
+    claim_token     varchar(36),
+    last_error      varchar(500),
+    created_at      timestamp(6) not null,
+    sent_at         timestamp(6)
+);
+
+-- The dispatcher's "what is due" query
+create index idx_outbox_due on notification_outbox (status, next_attempt_at);
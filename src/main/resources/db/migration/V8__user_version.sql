@@ -0,0 +1,6 @@
+-- =======================================================================
+-- V8: version column for the admin API's ETags and lost-update checks
+-- =======================================================================
+
+-- Existing users start at version 0
+alter table users add column version bigint not null default 0;
@@ -0,0 +1,226 @@
+package com.goldcosmetics.service;
+
+import com.goldcosmetics.dto.RollupPoint;
+import com.goldcosmetics.model.Role;
+import com.goldcosmetics.model.RollupMetric;
+import com.goldcosmetics.model.RollupResolution;
+import com.goldcosmetics.model.UserEvent;
+import com.goldcosmetics.model.UserEventType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Bucket rollover and startup replay of the activity rollups, against a real
+ * journal in a temp folder (the database side is mocked out - no saved rows)
+ */
+class ActivityRollupServiceTest {
+
+    private static final long MINUTE = RollupResolution.MINUTE.getWidthMillis();
+    private static final long HOUR = RollupResolution.HOUR.getWidthMillis();
+    private static final long DAY = RollupResolution.DAY.getWidthMillis();
+
+    @TempDir
+    Path journalDir;
+
+    private InterleavingJournal journal;
+    private ActivityRollupService rollups;
+    private boolean started;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        journal = new InterleavingJournal();
+        ReflectionTestUtils.setField(journal, "journalDir", journalDir.toString());
+        ReflectionTestUtils.setField(journal, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(journal, "retentionHours", 168L);
+        ReflectionTestUtils.setField(journal, "configuredInstanceId", "test");
+        journal.open();
+
+        rollups = new ActivityRollupService();
+        ReflectionTestUtils.setField(rollups, "userEventJournal", journal);
+        ReflectionTestUtils.setField(rollups, "jdbcTemplate", mock(JdbcTemplate.class));
+        ReflectionTestUtils.setField(rollups, "transactionTemplate", mock(TransactionTemplate.class));
+        ReflectionTestUtils.setField(rollups, "zoneName", "UTC");
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (started) {
+            rollups.stop();
+        }
+        journal.close();
+    }
+
+    @Test
+    void eventsEitherSideOfAMinuteBoundaryLandInSeparateBuckets() {
+        long boundary = minuteStart(System.currentTimeMillis()) - 10 * MINUTE;
+        start();
+
+        journal.append(login(boundary - 1));
+        journal.append(login(boundary));
+        journal.append(login(boundary + MINUTE - 1));
+
+        assertThat(counts(RollupResolution.MINUTE, boundary - MINUTE, boundary + MINUTE)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void eventsEitherSideOfMidnightLandInSeparateDays() {
+        long midnight = Math.floorDiv(System.currentTimeMillis(), DAY) * DAY;
+        start();
+
+        journal.append(login(midnight - 1));
+        journal.append(login(midnight));
+
+        assertThat(counts(RollupResolution.DAY, midnight - DAY, midnight + DAY)).containsExactly(1L, 1L);
+    }
+
+    @Test
+    void ringSlotIsResetWhenANewerBucketTakesItOver() {
+        long current = minuteStart(System.currentTimeMillis());
+        // A full ring earlier - same slot as the current minute
+        long oneRingAgo = current - RollupResolution.MINUTE.getSlots() * MINUTE;
+        start();
+
+        journal.append(login(oneRingAgo));
+        journal.append(login(current));
+        // Older than what the slot holds now - must not be added to the new bucket
+        journal.append(login(oneRingAgo));
+
+        assertThat(counts(RollupResolution.MINUTE, current, current + MINUTE)).containsExactly(1L);
+    }
+
+    @Test
+    void replayedEventsAreCountedOnce() {
+        long at = minuteStart(System.currentTimeMillis()) - 5 * MINUTE;
+        for (int i = 0; i < 50; i++) {
+            journal.append(login(at));
+        }
+        start();
+
+        assertThat(total(at - MINUTE, at + 2 * MINUTE)).isEqualTo(50);
+    }
+
+    @Test
+    void liveEventDuringReplayDoesNotSkipTheRestOfTheReplay() {
+        long now = System.currentTimeMillis();
+        long earlier = minuteStart(now) - 5 * MINUTE;
+        for (int i = 0; i < 100; i++) {
+            journal.append(login(earlier));
+        }
+        // A login arrives right after the first replayed event
+        journal.duringReplay = () -> journal.append(login(now));
+
+        start();
+
+        assertThat(total(earlier, minuteStart(now) + 2 * MINUTE)).isEqualTo(101);
+    }
+
+    @Test
+    void liveEventsAfterStartupAreCounted() {
+        long at = minuteStart(System.currentTimeMillis()) - 3 * MINUTE;
+        journal.append(login(at));
+        start();
+
+        journal.append(login(at));
+        journal.append(login(at));
+
+        assertThat(total(at, at + MINUTE)).isEqualTo(3);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void savedRowsBelongToThisInstance() throws InterruptedException {
+        long lastHour = Math.floorDiv(System.currentTimeMillis(), HOUR) * HOUR - HOUR;
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        ReflectionTestUtils.setField(rollups, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(rollups, "transactionTemplate", transactionTemplate);
+        start();
+
+        journal.append(login(lastHour));
+        rollups.stop();
+        started = false;
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        // The closed hour (plus yesterday, just after midnight), keyed by this
+        // instance - another instance's row for the same hour is never overwritten
+        assertThat(rows.getValue()).anySatisfy(row -> assertThat(row[1]).isEqualTo("HOUR"))
+                .allSatisfy(row -> assertThat(row[5]).isEqualTo("test"));
+    }
+
+    // =======================================================================
+    // HELPERS
+    // =======================================================================
+
+    private void start() {
+        rollups.start();
+        started = true;
+    }
+
+    private List<Long> counts(RollupResolution resolution, long fromMillis, long toMillis) {
+        return rollups.query(RollupMetric.LOGINS, resolution, utc(fromMillis), utc(toMillis), null, null)
+                .stream().map(RollupPoint::getCount).toList();
+    }
+
+    private long total(long fromMillis, long toMillis) {
+        return counts(RollupResolution.MINUTE, fromMillis, toMillis).stream().mapToLong(Long::longValue).sum();
+    }
+
+    private static UserEvent login(long occurredAt) {
+        return new UserEvent(0, occurredAt, UserEventType.LOGGED_IN, 1L, "ann", Role.CUSTOMER, "Naivasha");
+    }
+
+    private static long minuteStart(long millis) {
+        return Math.floorDiv(millis, MINUTE) * MINUTE;
+    }
+
+    private static LocalDateTime utc(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    /**
+     * Journal that can run something in the middle of a replay, the way a
+     * login on another thread would
+     */
+    private static final class InterleavingJournal extends UserEventJournal {
+
+        Runnable duringReplay;
+
+        @Override
+        public long replay(Consumer<UserEvent> view) {
+            AtomicBoolean fired = new AtomicBoolean();
+            return super.replay(event -> {
+                view.accept(event);
+                if (duringReplay != null && fired.compareAndSet(false, true)) {
+                    duringReplay.run();
+                }
+            });
+        }
+    }
+}
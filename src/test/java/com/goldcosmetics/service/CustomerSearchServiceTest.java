@@ -0,0 +1,125 @@
+package com.goldcosmetics.service;
+
+import com.goldcosmetics.dto.CustomerMatch;
+import com.goldcosmetics.model.Role;
+import com.goldcosmetics.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Trigram search: phone formats, ranking basics and updates that race a rebuild
+ */
+class CustomerSearchServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private CustomerSearchService search;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        search = new CustomerSearchService();
+        ReflectionTestUtils.setField(search, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @Test
+    void findsPhoneNumbersWhateverFormatTheTillTypes() {
+        search.rebuild();
+        search.indexAfterCommit(customer(1L, "angela", "Angela Wanjiru", "0712345678"));
+
+        assertThat(usernames("+254 712 345678")).containsExactly("angela");
+        assertThat(usernames("0712-345-678")).containsExactly("angela");
+        assertThat(usernames("(0712) 345 678")).containsExactly("angela");
+        assertThat(usernames("712 345")).containsExactly("angela");
+    }
+
+    @Test
+    void findsCustomersByPartOfTheirName() {
+        search.rebuild();
+        search.indexAfterCommit(customer(1L, "angela", "Angela Wanjiru", "0712345678"));
+        search.indexAfterCommit(customer(2L, "brian", "Brian Otieno", "0722000111"));
+
+        assertThat(usernames("wanji")).containsExactly("angela");
+        assertThat(usernames("otien")).containsExactly("brian");
+    }
+
+    @Test
+    void staffAreRemovedFromTheIndex() {
+        search.rebuild();
+        User user = customer(1L, "angela", "Angela Wanjiru", "0712345678");
+        search.indexAfterCommit(user);
+
+        user.setRole(Role.EMPLOYEE);
+        search.indexAfterCommit(user);
+
+        assertThat(usernames("wanjiru")).isEmpty();
+    }
+
+    @Test
+    void changesMadeWhileRebuildingSurviveTheSwap() throws Exception {
+        // The database still has Angela; while it is being read, Brian registers
+        // and Angela is removed
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(row(1L, "angela", "Angela Wanjiru", "0712345678"));
+
+            search.indexAfterCommit(customer(2L, "brian", "Brian Otieno", "0722000111"));
+            search.removeAfterCommit(1L);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("select id"), any(RowCallbackHandler.class));
+
+        search.rebuild();
+
+        assertThat(usernames("otieno")).containsExactly("brian");
+        assertThat(usernames("wanjiru")).isEmpty();
+    }
+
+    @Test
+    void phoneQueriesAreRecognised() {
+        assertThat(CustomerSearchService.isPhoneQuery("+254 712 345678")).isTrue();
+        assertThat(CustomerSearchService.isPhoneQuery("0712-345-678")).isTrue();
+        assertThat(CustomerSearchService.isPhoneQuery("angela")).isFalse();
+        assertThat(CustomerSearchService.isPhoneQuery("ann254")).isFalse();
+        assertThat(CustomerSearchService.normalizePhone("+254 712 345678")).isEqualTo("0712345678");
+    }
+
+    // =======================================================================
+    // HELPERS
+    // =======================================================================
+
+    private List<String> usernames(String query) {
+        return search.search(query, null, 10).stream().map(CustomerMatch::getUsername).toList();
+    }
+
+    private static User customer(Long id, String username, String fullName, String phone) {
+        return User.builder()
+                .id(id)
+                .username(username)
+                .fullName(fullName)
+                .phone(phone)
+                .email(username + "@example.com")
+                .role(Role.CUSTOMER)
+                .build();
+    }
+
+    private static ResultSet row(long id, String username, String fullName, String phone) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(id);
+        when(rs.getString("username")).thenReturn(username);
+        when(rs.getString("full_name")).thenReturn(fullName);
+        when(rs.getString("phone")).thenReturn(phone);
+        when(rs.getString("email")).thenReturn(username + "@example.com");
+        return rs;
+    }
+}
@@ -0,0 +1,189 @@
+package com.goldcosmetics.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goldcosmetics.model.Role;
+import com.goldcosmetics.model.UserEvent;
+import com.goldcosmetics.model.UserEventType;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * What each live dashboard is sent, against a real journal in a temp folder
+ * and a fake non-blocking connection. The publisher is driven by hand.
+ */
+class DashboardLiveFeedTest {
+
+    @TempDir
+    Path journalDir;
+
+    private UserEventJournal journal;
+    private DashboardLiveFeed feed;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        journal = new UserEventJournal();
+        ReflectionTestUtils.setField(journal, "journalDir", journalDir.toString());
+        ReflectionTestUtils.setField(journal, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(journal, "retentionHours", 168L);
+        ReflectionTestUtils.setField(journal, "configuredInstanceId", "test");
+        journal.open();
+
+        feed = new DashboardLiveFeed();
+        ReflectionTestUtils.setField(feed, "userEventJournal", journal);
+        ReflectionTestUtils.setField(feed, "userCountersView", mock(UserCountersView.class));
+        ReflectionTestUtils.setField(feed, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(feed, "coalesceMs", 3_600_000L);
+        ReflectionTestUtils.setField(feed, "heartbeatSeconds", 20L);
+        ReflectionTestUtils.setField(feed, "stallTimeoutSeconds", 30L);
+        ReflectionTestUtils.setField(feed, "connectionTimeoutMinutes", 30L);
+        ReflectionTestUtils.setField(feed, "maxClients", 10);
+        ReflectionTestUtils.setField(feed, "clientQueueSize", 4);
+        ReflectionTestUtils.setField(feed, "writerThreads", 1);
+        feed.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        feed.stop();
+        journal.close();
+    }
+
+    @Test
+    void employeesOnlySeeNamesOfTheirOwnShopsCustomers() throws Exception {
+        FakeConnection naivasha = connect(Role.EMPLOYEE, "Naivasha", null);
+
+        journal.append(event(UserEventType.REGISTERED, "wanjiku", "Naivasha"));
+        journal.append(event(UserEventType.REGISTERED, "otieno", "Karagita"));
+        journal.append(event(UserEventType.LOGGED_IN, "no-shop-customer", null));
+        ReflectionTestUtils.invokeMethod(feed, "publish");
+
+        String sent = naivasha.awaitText("wanjiku");
+        // The customer without a shop is counted, but not named
+        assertThat(sent).contains("\"newCustomers\":1").contains("\"logins\":1")
+                .doesNotContain("otieno").doesNotContain("no-shop-customer");
+    }
+
+    @Test
+    void reconnectingDashboardIsSentWhatItMissed() throws Exception {
+        journal.append(event(UserEventType.REGISTERED, "wanjiku", "Naivasha"));
+        ReflectionTestUtils.invokeMethod(feed, "publish");
+        long seen = journal.getLastSequence();
+        // Missed while disconnected
+        journal.append(event(UserEventType.LOGGED_IN, "otieno", "Karagita"));
+        journal.append(event(UserEventType.LOGGED_IN, "akinyi", "Karagita"));
+        ReflectionTestUtils.invokeMethod(feed, "publish");
+
+        FakeConnection admin = connect(Role.ADMIN, null, seen + "@test");
+
+        String hello = admin.awaitText("akinyi");
+        assertThat(hello).contains("\"logins\":2").contains("otieno").doesNotContain("wanjiku")
+                .contains("id: " + journal.getLastSequence() + "@test");
+    }
+
+    @Test
+    void reconnectFromAnotherInstanceAsksForAReload() throws Exception {
+        FakeConnection admin = connect(Role.ADMIN, null, "5@some-other-instance");
+
+        assertThat(admin.awaitText("resync")).contains("\"resync\":true");
+    }
+
+    @Test
+    void dashboardThatTakesNothingIsDroppedWithoutWaitingOnIt() throws Exception {
+        ReflectionTestUtils.setField(feed, "stallTimeoutSeconds", 0L);
+        FakeConnection stuck = connect(Role.ADMIN, null, null);
+        stuck.ready = false;
+        journal.append(event(UserEventType.REGISTERED, "wanjiku", "Naivasha"));
+        ReflectionTestUtils.invokeMethod(feed, "publish");
+        stuck.listener.onWritePossible();
+        Thread.sleep(5);
+
+        ReflectionTestUtils.invokeMethod(feed, "keepAliveAndDropStalled");
+
+        verify(stuck.async).complete();
+        assertThat(feed.getConnectedCount()).isZero();
+    }
+
+    // =======================================================================
+    // HELPERS
+    // =======================================================================
+
+    private FakeConnection connect(Role audience, String shop, String lastEventId) throws IOException {
+        FakeConnection connection = new FakeConnection();
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(request.startAsync()).thenReturn(connection.async);
+        when(response.getOutputStream()).thenReturn(connection);
+
+        feed.connect(audience, shop, lastEventId, request, response);
+        // The container says the connection can take data once the request thread is done
+        connection.listener.onWritePossible();
+        return connection;
+    }
+
+    private static UserEvent event(UserEventType type, String username, String shop) {
+        return new UserEvent(0, System.currentTimeMillis(), type, 1L, username, Role.CUSTOMER, shop);
+    }
+
+    /**
+     * Servlet output that accepts everything while ready, and nothing otherwise
+     */
+    private static final class FakeConnection extends ServletOutputStream {
+
+        final AsyncContext async = mock(AsyncContext.class);
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        volatile boolean ready = true;
+        WriteListener listener;
+
+        String awaitText(String expected) throws InterruptedException {
+            for (int i = 0; i < 200; i++) {
+                String text = text();
+                if (text.contains(expected)) {
+                    return text;
+                }
+                Thread.sleep(10);
+            }
+            return text();
+        }
+
+        synchronized String text() {
+            return written.toString(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            listener = writeListener;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            written.write(b);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            written.write(b, off, len);
+        }
+    }
+}
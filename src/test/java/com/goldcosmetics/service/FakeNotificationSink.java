@@ -0,0 +1,275 @@
+package com.goldcosmetics.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goldcosmetics.model.NotificationChannel;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the mail server and SMS gateway, for tests and load tests.
+ * Lives in the test sources, so it is never part of the app jar.
+ *
+ * Runs a tiny SMTP server and an HTTP endpoint on localhost. They accept
+ * whatever SmtpEmailSender and HttpSmsSender send, keep the latest messages
+ * in memory and can add a delay per connection and per message, like a real
+ * provider. Point the senders at it with:
+ *   goldcosmetics.notifications.email.host=localhost / .port = smtp-port
+ *   goldcosmetics.notifications.sms.url=http://localhost:<sms-port>/sms
+ *
+ * Enable with: goldcosmetics.notifications.fake-sink.enabled=true
+ * (or create one directly in a test). Port 0 picks free ports - see
+ * getSmtpPort() and getSmsPort().
+ */
+@Component
+@ConditionalOnProperty(name = "goldcosmetics.notifications.fake-sink.enabled", havingValue = "true")
+public class FakeNotificationSink {
+
+    private static final int KEEP_LATEST = 1000;
+
+    public record ReceivedMessage(NotificationChannel channel, String recipient, String subject,
+                                  String body, long receivedAt) {
+    }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${goldcosmetics.notifications.fake-sink.smtp-port:2525}")
+    private int smtpPort;
+
+    @Value("${goldcosmetics.notifications.fake-sink.sms-port:2526}")
+    private int smsPort;
+
+    // Extra time for each new SMTP connection (greeting, TLS, auth on a real server)
+    @Value("${goldcosmetics.notifications.fake-sink.connect-delay-ms:0}")
+    private long connectDelayMs;
+
+    // Extra time for each message accepted
+    @Value("${goldcosmetics.notifications.fake-sink.message-delay-ms:0}")
+    private long messageDelayMs;
+
+    private final Deque<ReceivedMessage> latest = new ArrayDeque<>();
+    private final AtomicLong emailCount = new AtomicLong();
+    private final AtomicLong smsCount = new AtomicLong();
+    private final AtomicLong smtpConnections = new AtomicLong();
+
+    private final ExecutorService handlers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "fake-notification-sink");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ServerSocket smtpServer;
+    private HttpServer smsServer;
+
+    @PostConstruct
+    public void start() throws IOException {
+        smtpServer = new ServerSocket(smtpPort, 100, InetAddress.getLoopbackAddress());
+        handlers.submit(this::acceptSmtp);
+
+        smsServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), smsPort), 100);
+        smsServer.createContext("/sms", this::handleSms);
+        smsServer.setExecutor(handlers);
+        smsServer.start();
+
+        System.out.println("📮 Fake notification sink: SMTP on localhost:" + getSmtpPort()
+                         + ", SMS on http://localhost:" + getSmsPort() + "/sms");
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        smsServer.stop(0);
+        smtpServer.close();
+        handlers.shutdownNow();
+        System.out.println("📮 Fake notification sink received " + emailCount.get() + " emails over "
+                         + smtpConnections.get() + " SMTP connections and " + smsCount.get() + " SMS");
+    }
+
+    public int getSmtpPort() {
+        return smtpServer.getLocalPort();
+    }
+
+    public int getSmsPort() {
+        return smsServer.getAddress().getPort();
+    }
+
+    public long getEmailCount() {
+        return emailCount.get();
+    }
+
+    public long getSmsCount() {
+        return smsCount.get();
+    }
+
+    public long getSmtpConnectionCount() {
+        return smtpConnections.get();
+    }
+
+    /** Newest last */
+    public List<ReceivedMessage> getLatest() {
+        synchronized (latest) {
+            return new ArrayList<>(latest);
+        }
+    }
+
+    private void acceptSmtp() {
+        while (!smtpServer.isClosed()) {
+            try {
+                Socket socket = smtpServer.accept();
+                handlers.submit(() -> handleSmtp(socket));
+            } catch (IOException e) {
+                // Closed on shutdown
+            }
+        }
+    }
+
+    /**
+     * Just enough SMTP for a client that sends plain messages: HELO/EHLO,
+     * MAIL, RCPT, DATA, RSET, NOOP and QUIT
+     */
+    private void handleSmtp(Socket socket) {
+        smtpConnections.incrementAndGet();
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), false, StandardCharsets.UTF_8)) {
+
+            pause(connectDelayMs);
+            reply(out, "220 localhost fake SMTP ready");
+
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 localhost");
+                    case "MAIL" -> {
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "RCPT" -> {
+                        recipients.add(line.replaceAll("(?i)^RCPT TO:\\s*<?([^>]*)>?.*$", "$1"));
+                        reply(out, "250 OK");
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        readMessage(in, recipients);
+                        pause(messageDelayMs);
+                        reply(out, "250 OK queued");
+                    }
+                    case "RSET" -> {
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "NOOP" -> reply(out, "250 OK");
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (SocketException e) {
+            // Client hung up
+        } catch (IOException | InterruptedException e) {
+            System.out.println("⚠️ Fake SMTP connection failed: " + e.getMessage());
+        }
+    }
+
+    private void readMessage(BufferedReader in, List<String> recipients) throws IOException {
+        StringBuilder body = new StringBuilder();
+        String subject = null;
+        boolean inHeaders = true;
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            if (line.startsWith("..")) {
+                line = line.substring(1);  // SMTP dot-stuffing
+            }
+            if (inHeaders) {
+                if (line.isEmpty()) {
+                    inHeaders = false;
+                } else if (line.regionMatches(true, 0, "Subject:", 0, 8)) {
+                    subject = line.substring(8).trim();
+                }
+            } else {
+                body.append(line).append('\n');
+            }
+        }
+        for (String recipient : recipients) {
+            emailCount.incrementAndGet();
+            remember(new ReceivedMessage(NotificationChannel.EMAIL, recipient, subject, body.toString(),
+                    System.currentTimeMillis()));
+        }
+    }
+
+    private void handleSms(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            JsonNode message = objectMapper.readTree(exchange.getRequestBody());
+            String to = message.path("to").asText("");
+            if (to.isBlank()) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            pause(messageDelayMs);
+            smsCount.incrementAndGet();
+            remember(new ReceivedMessage(NotificationChannel.SMS, to, null, message.path("message").asText(""),
+                    System.currentTimeMillis()));
+
+            byte[] response = "{\"status\":\"queued\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(response);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void remember(ReceivedMessage message) {
+        synchronized (latest) {
+            latest.addLast(message);
+            if (latest.size() > KEEP_LATEST) {
+                latest.removeFirst();
+            }
+        }
+    }
+
+    private static void reply(PrintWriter out, String line) {
+        out.print(line + "\r\n");
+        out.flush();
+    }
+
+    private static void pause(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.goldcosmetics.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goldcosmetics.model.NotificationChannel;
+import com.goldcosmetics.model.OutboxNotification;
+import com.goldcosmetics.model.Role;
+import com.goldcosmetics.model.User;
+import com.goldcosmetics.repository.OutboxNotificationRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The outbox end to end: NotificationOutbox and NotificationDispatcher against
+ * a real PostgreSQL, sending to FakeNotificationSink over SMTP and HTTP
+ */
+class NotificationOutboxTest {
+
+    private static final String INSERT_ROW =
+            "insert into notification_outbox (channel, type, recipient, subject, body, status, attempts, "
+          + "next_attempt_at, claim_token, created_at) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) returning id";
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static EmbeddedPostgres postgres;
+    private static FakeNotificationSink sink;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private SmtpEmailSender emailSender;
+    private HttpSmsSender smsSender;
+    private final List<NotificationDispatcher> dispatchers = new ArrayList<>();
+
+    @BeforeAll
+    static void startDatabaseAndSink() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        // The same tables production gets
+        Flyway.configure().dataSource(postgres.getPostgresDatabase()).load().migrate();
+
+        sink = new FakeNotificationSink();
+        ReflectionTestUtils.setField(sink, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(sink, "smtpPort", 0);
+        ReflectionTestUtils.setField(sink, "smsPort", 0);
+        sink.start();
+    }
+
+    @AfterAll
+    static void stopDatabaseAndSink() throws IOException {
+        sink.stop();
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = postgres.getPostgresDatabase();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("truncate notification_outbox restart identity");
+
+        emailSender = new SmtpEmailSender();
+        ReflectionTestUtils.setField(emailSender, "host", "localhost");
+        ReflectionTestUtils.setField(emailSender, "port", sink.getSmtpPort());
+        ReflectionTestUtils.setField(emailSender, "username", "");
+        ReflectionTestUtils.setField(emailSender, "password", "");
+        ReflectionTestUtils.setField(emailSender, "startTls", false);
+        ReflectionTestUtils.setField(emailSender, "from", "no-reply@goldcosmetics.co.ke");
+        ReflectionTestUtils.setField(emailSender, "connections", 4);
+        emailSender.start();
+
+        smsSender = new HttpSmsSender();
+        ReflectionTestUtils.setField(smsSender, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(smsSender, "gatewayUrl", "http://localhost:" + sink.getSmsPort() + "/sms");
+        ReflectionTestUtils.setField(smsSender, "apiKey", "");
+        ReflectionTestUtils.setField(smsSender, "concurrency", 4);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (NotificationDispatcher dispatcher : dispatchers) {
+            dispatcher.stop();
+        }
+        emailSender.stop();
+    }
+
+    @Test
+    void committedChangeSendsItsNotice() {
+        // Polls only once a minute - a quick send means the commit woke it up
+        NotificationDispatcher dispatcher = dispatcher(60_000);
+        NotificationOutbox outbox = outbox(dispatcher);
+        User user = user("angela");
+
+        transactionTemplate.executeWithoutResult(status -> outbox.queueWelcome(user));
+
+        awaitTrue(() -> received(user.getEmail()).size() == 1);
+        FakeNotificationSink.ReceivedMessage message = received(user.getEmail()).get(0);
+        assertThat(message.subject()).isEqualTo("Welcome to Gold Cosmetics!");
+        assertThat(message.body()).contains(user.getUsername());
+        awaitTrue(() -> "SENT".equals(statusOf(user.getEmail())));
+    }
+
+    @Test
+    void rolledBackChangeSendsNothing() {
+        NotificationDispatcher dispatcher = manualDispatcher();
+        NotificationOutbox outbox = outbox(dispatcher);
+        User user = user("brian");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            outbox.queuePasswordChanged(user);
+            status.setRollbackOnly();
+        });
+
+        assertThat(dispatchBatch(dispatcher)).isZero();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from notification_outbox", Long.class)).isZero();
+        assertThat(received(user.getEmail())).isEmpty();
+        assertThat(received(user.getPhone())).isEmpty();
+    }
+
+    @Test
+    void failedSendIsRetriedWithBackoffThenMarkedFailed() {
+        NotificationDispatcher dispatcher = manualDispatcher();
+        // The fake gateway answers 400 to an SMS without a number
+        long id = insertRow(NotificationChannel.SMS, "", "PENDING", 0, LocalDateTime.now().plusHours(1), null);
+
+        // Attempt 1: back off 30 s (+/- 20%)
+        makeDue(id);
+        assertThat(dispatchBatch(dispatcher)).isEqualTo(1);
+        Map<String, Object> row = row(id);
+        assertThat(row.get("status")).isEqualTo("PENDING");
+        assertThat(row.get("attempts")).isEqualTo(1);
+        assertThat((String) row.get("last_error")).contains("400");
+        assertThat(row.get("claim_token")).isNull();
+        assertThat(secondsUntilNextAttempt(row)).isBetween(20L, 40L);
+
+        // Not due yet - left alone
+        assertThat(dispatchBatch(dispatcher)).isZero();
+
+        // Attempt 2: twice as long
+        makeDue(id);
+        assertThat(dispatchBatch(dispatcher)).isEqualTo(1);
+        row = row(id);
+        assertThat(row.get("attempts")).isEqualTo(2);
+        assertThat(secondsUntilNextAttempt(row)).isBetween(45L, 75L);
+
+        // Attempt 3 is the last
+        makeDue(id);
+        assertThat(dispatchBatch(dispatcher)).isEqualTo(1);
+        row = row(id);
+        assertThat(row.get("status")).isEqualTo("FAILED");
+        assertThat(row.get("attempts")).isEqualTo(MAX_ATTEMPTS);
+        assertThat(row.get("claim_token")).isNull();
+    }
+
+    @Test
+    void rowWhoseLeaseRanOutIsClaimedAgain() {
+        NotificationDispatcher dispatcher = manualDispatcher();
+        String recipient = "lease-" + UUID.randomUUID() + "@example.com";
+        // Claimed by a dispatcher that died before recording anything
+        long id = insertRow(NotificationChannel.EMAIL, recipient, "IN_FLIGHT", 1,
+                LocalDateTime.now().minusMinutes(1), "dispatcher-that-crashed");
+
+        assertThat(dispatchBatch(dispatcher)).isEqualTo(1);
+
+        Map<String, Object> row = row(id);
+        assertThat(row.get("status")).isEqualTo("SENT");
+        assertThat(row.get("attempts")).isEqualTo(2);
+        assertThat(received(recipient)).hasSize(1);
+    }
+
+    @Test
+    void rowStillLeasedIsLeftAlone() {
+        NotificationDispatcher dispatcher = manualDispatcher();
+        String recipient = "leased-" + UUID.randomUUID() + "@example.com";
+        long id = insertRow(NotificationChannel.EMAIL, recipient, "IN_FLIGHT", 1,
+                LocalDateTime.now().plusMinutes(4), "dispatcher-still-sending");
+
+        assertThat(dispatchBatch(dispatcher)).isZero();
+        assertThat(row(id).get("status")).isEqualTo("IN_FLIGHT");
+        assertThat(received(recipient)).isEmpty();
+    }
+
+    @Test
+    void twoDispatchersSendEachNoticeOnce() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        int count = 200;
+        List<String> recipients = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < count; i++) {
+                String recipient = "bulk-" + run + "-" + i + "@example.com";
+                recipients.add(recipient);
+                insertRow(NotificationChannel.EMAIL, recipient, "PENDING", 0, LocalDateTime.now(), null);
+            }
+        });
+
+        // Small batches and quick polls, so both keep claiming at the same time
+        dispatcher(20);
+        dispatcher(20);
+
+        awaitTrue(() -> jdbcTemplate.queryForObject(
+                "select count(*) from notification_outbox where status = 'SENT'", Long.class) == count);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from notification_outbox where attempts <> 1", Long.class)).isZero();
+        for (String recipient : recipients) {
+            assertThat(received(recipient)).as(recipient).hasSize(1);
+        }
+    }
+
+    // =======================================================================
+    // HELPERS
+    // =======================================================================
+
+    private NotificationDispatcher dispatcher(long pollIntervalMs) {
+        NotificationDispatcher dispatcher = new NotificationDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(dispatcher, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(dispatcher, "senders", List.of(emailSender, smsSender));
+        ReflectionTestUtils.setField(dispatcher, "enabled", true);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 10);
+        ReflectionTestUtils.setField(dispatcher, "pollIntervalMs", pollIntervalMs);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", MAX_ATTEMPTS);
+        ReflectionTestUtils.setField(dispatcher, "initialBackoffSeconds", 30L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffMinutes", 60L);
+        ReflectionTestUtils.setField(dispatcher, "leaseSeconds", 300L);
+        dispatcher.start();
+        dispatchers.add(dispatcher);
+        return dispatcher;
+    }
+
+    // Background thread stopped, so the test decides when a batch runs
+    private NotificationDispatcher manualDispatcher() {
+        NotificationDispatcher dispatcher = dispatcher(60_000);
+        Thread worker = (Thread) ReflectionTestUtils.getField(dispatcher, "worker");
+        worker.interrupt();
+        try {
+            worker.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        assertThat(worker.isAlive()).isFalse();
+        return dispatcher;
+    }
+
+    // The real outbox, with its repository writing through the same transaction as the test
+    private NotificationOutbox outbox(NotificationDispatcher dispatcher) {
+        OutboxNotificationRepository repository = mock(OutboxNotificationRepository.class);
+        when(repository.save(any(OutboxNotification.class))).thenAnswer(invocation -> {
+            OutboxNotification notification = invocation.getArgument(0);
+            LocalDateTime now = LocalDateTime.now();
+            jdbcTemplate.queryForObject(INSERT_ROW, Long.class,
+                    notification.getChannel().name(), notification.getType().name(),
+                    notification.getRecipient(), notification.getSubject(), notification.getBody(),
+                    notification.getStatus().name(), 0, Timestamp.valueOf(now), null, Timestamp.valueOf(now));
+            return notification;
+        });
+
+        NotificationOutbox outbox = new NotificationOutbox();
+        ReflectionTestUtils.setField(outbox, "outboxRepository", repository);
+        ReflectionTestUtils.setField(outbox, "notificationDispatcher", dispatcher);
+        return outbox;
+    }
+
+    private static User user(String name) {
+        String unique = name + "-" + UUID.randomUUID().toString().substring(0, 8);
+        return User.builder()
+                .username(unique)
+                .email(unique + "@example.com")
+                .fullName(name)
+                .phone("07" + (10_000_000 + Math.abs(unique.hashCode() % 89_999_999)))
+                .role(Role.CUSTOMER)
+                .build();
+    }
+
+    private long insertRow(NotificationChannel channel, String recipient, String status, int attempts,
+                           LocalDateTime nextAttemptAt, String claimToken) {
+        return jdbcTemplate.queryForObject(INSERT_ROW, Long.class,
+                channel.name(), "PASSWORD_CHANGED", recipient,
+                channel == NotificationChannel.EMAIL ? "Test notice" : null, "Test body",
+                status, attempts, Timestamp.valueOf(nextAttemptAt), claimToken,
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private void makeDue(long id) {
+        jdbcTemplate.update("update notification_outbox set next_attempt_at = ? where id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)), id);
+    }
+
+    private Map<String, Object> row(long id) {
+        return jdbcTemplate.queryForMap("select * from notification_outbox where id = ?", id);
+    }
+
+    private String statusOf(String recipient) {
+        return jdbcTemplate.queryForObject("select status from notification_outbox where recipient = ?",
+                String.class, recipient);
+    }
+
+    private static long secondsUntilNextAttempt(Map<String, Object> row) {
+        LocalDateTime next = ((Timestamp) row.get("next_attempt_at")).toLocalDateTime();
+        return Duration.between(LocalDateTime.now(), next).toSeconds();
+    }
+
+    private static int dispatchBatch(NotificationDispatcher dispatcher) {
+        Integer handled = ReflectionTestUtils.invokeMethod(dispatcher, "dispatchBatch");
+        return handled == null ? 0 : handled;
+    }
+
+    private static List<FakeNotificationSink.ReceivedMessage> received(String recipient) {
+        return sink.getLatest().stream().filter(message -> message.recipient().equals(recipient)).toList();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Timed out waiting for the outbox");
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError("Interrupted", e);
+            }
+        }
+    }
+}
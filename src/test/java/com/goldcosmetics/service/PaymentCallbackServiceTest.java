@@ -0,0 +1,75 @@
+package com.goldcosmetics.service;
+
+import com.goldcosmetics.model.PaymentStatus;
+import com.goldcosmetics.service.PaymentCallbackService.RecordedEvent;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * How an order's payment status follows from its callbacks, in arrival order
+ */
+class PaymentCallbackServiceTest {
+
+    private static final BigDecimal TOTAL = new BigDecimal("1250.50");
+    private static final long TOTAL_CENTS = 125_050;
+
+    @Test
+    void noEventsLeavesTheOrderPending() {
+        assertThat(PaymentCallbackService.settledStatus(List.of(), TOTAL)).isEqualTo(PaymentStatus.PENDING);
+    }
+
+    @Test
+    void successAfterFailureIsPaid() {
+        List<RecordedEvent> events = List.of(
+                new RecordedEvent(PaymentStatus.FAILED, TOTAL_CENTS),
+                new RecordedEvent(PaymentStatus.PAID, TOTAL_CENTS));
+
+        assertThat(PaymentCallbackService.settledStatus(events, TOTAL)).isEqualTo(PaymentStatus.PAID);
+    }
+
+    @Test
+    void lateFailureDoesNotUndoSuccess() {
+        List<RecordedEvent> events = List.of(
+                new RecordedEvent(PaymentStatus.PAID, TOTAL_CENTS),
+                new RecordedEvent(PaymentStatus.FAILED, TOTAL_CENTS));
+
+        assertThat(PaymentCallbackService.settledStatus(events, TOTAL)).isEqualTo(PaymentStatus.PAID);
+    }
+
+    @Test
+    void refundAfterSuccessIsRefunded() {
+        List<RecordedEvent> events = List.of(
+                new RecordedEvent(PaymentStatus.PAID, TOTAL_CENTS),
+                new RecordedEvent(PaymentStatus.REFUNDED, TOTAL_CENTS));
+
+        assertThat(PaymentCallbackService.settledStatus(events, TOTAL)).isEqualTo(PaymentStatus.REFUNDED);
+    }
+
+    @Test
+    void refundWithoutPaymentIsIgnored() {
+        List<RecordedEvent> events = List.of(new RecordedEvent(PaymentStatus.REFUNDED, TOTAL_CENTS));
+
+        assertThat(PaymentCallbackService.settledStatus(events, TOTAL)).isEqualTo(PaymentStatus.PENDING);
+    }
+
+    @Test
+    void successForTheWrongAmountIsNotPaid() {
+        List<RecordedEvent> underpaid = List.of(new RecordedEvent(PaymentStatus.PAID, TOTAL_CENTS - 100));
+        List<RecordedEvent> noAmount = List.of(new RecordedEvent(PaymentStatus.PAID, null));
+
+        assertThat(PaymentCallbackService.settledStatus(underpaid, TOTAL)).isEqualTo(PaymentStatus.AMOUNT_MISMATCH);
+        assertThat(PaymentCallbackService.settledStatus(noAmount, TOTAL)).isEqualTo(PaymentStatus.AMOUNT_MISMATCH);
+    }
+
+    @Test
+    void correctPaymentAfterMismatchIsPaid() {
+        List<RecordedEvent> events = List.of(
+                new RecordedEvent(PaymentStatus.PAID, 1L),
+                new RecordedEvent(PaymentStatus.PAID, TOTAL_CENTS));
+
+        assertThat(PaymentCallbackService.settledStatus(events, TOTAL)).isEqualTo(PaymentStatus.PAID);
+    }
+}
@@ -0,0 +1,225 @@
+package com.goldcosmetics.service;
+
+import com.goldcosmetics.model.Role;
+import com.goldcosmetics.model.UserEvent;
+import com.goldcosmetics.model.UserEventType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Segment files: append/read, reopening after a crash, rolling and compaction
+ */
+class UserEventJournalTest {
+
+    private static final int SEGMENT_HEADER_SIZE = 32;
+    private static final int RECORD_HEADER_SIZE = 16;
+
+    @TempDir
+    Path dir;
+
+    private UserEventJournal journal;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        journal = open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.close();
+    }
+
+    @Test
+    void eventsAreReadBackInOrderWithTheirSequence() {
+        journal.append(event(UserEventType.REGISTERED, 1L, "angela", Role.CUSTOMER));
+        journal.append(event(UserEventType.LOGGED_IN, 1L, "angela", Role.CUSTOMER));
+        journal.append(event(UserEventType.ROLE_CHANGED, 1L, "angela", Role.EMPLOYEE));
+
+        List<UserEvent> events = replayAll();
+        assertThat(events).extracting(UserEvent::sequence).containsExactly(1L, 2L, 3L);
+        assertThat(events).extracting(UserEvent::type)
+                .containsExactly(UserEventType.REGISTERED, UserEventType.LOGGED_IN, UserEventType.ROLE_CHANGED);
+        assertThat(events.get(2).role()).isEqualTo(Role.EMPLOYEE);
+        assertThat(events.get(2).username()).isEqualTo("angela");
+    }
+
+    @Test
+    void cursorOnlyReturnsNewEvents() {
+        journal.append(event(UserEventType.REGISTERED, 1L, "angela", Role.CUSTOMER));
+        UserEventJournal.Cursor cursor = new UserEventJournal.Cursor(0);
+        assertThat(journal.read(cursor, 100)).hasSize(1);
+
+        journal.append(event(UserEventType.LOGGED_IN, 1L, "angela", Role.CUSTOMER));
+        List<UserEvent> next = journal.read(cursor, 100);
+        assertThat(next).extracting(UserEvent::sequence).containsExactly(2L);
+        assertThat(journal.read(cursor, 100)).isEmpty();
+    }
+
+    @Test
+    void reopeningContinuesTheSequence() throws IOException {
+        journal.append(event(UserEventType.REGISTERED, 1L, "angela", Role.CUSTOMER));
+        journal.append(event(UserEventType.REGISTERED, 2L, "brian", Role.CUSTOMER));
+        journal.close();
+
+        journal = open();
+        assertThat(journal.getLastSequence()).isEqualTo(2);
+        assertThat(journal.append(event(UserEventType.LOGGED_IN, 1L, "angela", Role.CUSTOMER)).sequence()).isEqualTo(3);
+        assertThat(replayAll()).hasSize(3);
+    }
+
+    @Test
+    void tornLastRecordIsDroppedOnReopen() throws IOException {
+        UserEvent first = event(UserEventType.REGISTERED, 1L, "angela", Role.CUSTOMER);
+        journal.append(first);
+        journal.append(event(UserEventType.REGISTERED, 2L, "brian", Role.CUSTOMER));
+        journal.close();
+
+        // Damage the payload of the second record, as a crash half-way through a write would
+        Path segment = segmentFiles().get(0);
+        long secondRecord = SEGMENT_HEADER_SIZE + RECORD_HEADER_SIZE + UserEventJournal.encode(first).length;
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(secondRecord + RECORD_HEADER_SIZE + 3);
+            file.write(0x5A);
+        }
+
+        journal = open();
+        assertThat(journal.getLastSequence()).isEqualTo(1);
+        assertThat(replayAll()).extracting(UserEvent::userId).containsExactly(1L);
+    }
+
+    @Test
+    void fullSegmentRollsOverWithoutLosingEvents() throws IOException {
+        int appended = fillUntilSegments(3, 10L);
+
+        assertThat(segmentFiles()).hasSize(3);
+        assertThat(replayAll()).hasSize(appended);
+        assertThat(journal.getLastSequence()).isEqualTo(appended);
+    }
+
+    @Test
+    void compactionKeepsLatestEventPerTypeAndDropsDeletedUsers() throws IOException {
+        journal.append(event(UserEventType.REGISTERED, 1L, "angela", Role.CUSTOMER));
+        journal.append(event(UserEventType.ROLE_CHANGED, 1L, "angela", Role.EMPLOYEE));
+        journal.append(event(UserEventType.REGISTERED, 2L, "brian", Role.CUSTOMER));
+        fillUntilSegments(2, 3L);
+        journal.append(event(UserEventType.ROLE_CHANGED, 1L, "angela", Role.ADMIN));
+        journal.append(UserEvent.of(UserEventType.DELETED, 2L));
+        fillUntilSegments(3, 3L);
+
+        List<UserEvent> before = replayAll();
+        long lastSealed = lastSequenceOfSealedSegments();
+        makeSegmentsOld();
+        journal.setProjectedSequence(journal.getLastSequence());
+
+        journal.compact();
+
+        assertThat(segmentFiles()).hasSize(2);
+        List<UserEvent> after = replayAll();
+
+        List<UserEvent> angela = after.stream().filter(e -> e.userId() == 1L).toList();
+        assertThat(angela).extracting(UserEvent::type)
+                .containsExactly(UserEventType.REGISTERED, UserEventType.ROLE_CHANGED);
+        assertThat(angela.get(1).role()).isEqualTo(Role.ADMIN);
+
+        assertThat(after).noneMatch(e -> e.userId() == 2L);
+
+        // Only the last filler login from the compacted part is left; the active segment is untouched
+        long compactedLogins = after.stream().filter(e -> e.userId() == 3L && e.sequence() <= lastSealed).count();
+        assertThat(compactedLogins).isEqualTo(1);
+        assertThat(after.stream().filter(e -> e.sequence() > lastSealed).toList())
+                .isEqualTo(before.stream().filter(e -> e.sequence() > lastSealed).toList());
+
+        // And it all survives a restart
+        journal.close();
+        journal = open();
+        assertThat(replayAll()).isEqualTo(after);
+    }
+
+    @Test
+    void typesAndRolesAreStoredAsFixedCodes() {
+        // Bytes 8 and 17 of the payload - these values are on disk and must never change
+        byte[] payload = UserEventJournal.encode(event(UserEventType.LOGGED_IN, 1L, "angela", Role.ADMIN));
+        assertThat(payload[8]).isEqualTo((byte) 7);
+        assertThat(payload[17]).isEqualTo((byte) 2);
+
+        for (UserEventType type : UserEventType.values()) {
+            for (Role role : Role.values()) {
+                UserEvent written = event(type, 1L, "angela", role);
+                assertThat(UserEventJournal.decode(0, UserEventJournal.encode(written))).isEqualTo(written);
+            }
+        }
+        UserEvent noRole = UserEvent.of(UserEventType.DELETED, 1L);
+        assertThat(UserEventJournal.decode(0, UserEventJournal.encode(noRole))).isEqualTo(noRole);
+    }
+
+    // =======================================================================
+    // HELPERS
+    // =======================================================================
+
+    private UserEventJournal open() throws IOException {
+        UserEventJournal opened = new UserEventJournal();
+        ReflectionTestUtils.setField(opened, "journalDir", dir.toString());
+        ReflectionTestUtils.setField(opened, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(opened, "retentionHours", 1L);
+        ReflectionTestUtils.setField(opened, "configuredInstanceId", "");
+        opened.open();
+        return opened;
+    }
+
+    private List<UserEvent> replayAll() {
+        List<UserEvent> events = new ArrayList<>();
+        journal.replay(events::add);
+        return events;
+    }
+
+    // Logins for user `userId` until there are this many segment files; returns events appended
+    private int fillUntilSegments(int segments, long userId) throws IOException {
+        String longName = "filler-user-with-a-fairly-long-name-" + userId;
+        int appended = 0;
+        while (segmentFiles().size() < segments) {
+            for (int i = 0; i < 1000; i++) {
+                journal.append(event(UserEventType.LOGGED_IN, userId, longName, Role.CUSTOMER));
+                appended++;
+            }
+        }
+        return appended;
+    }
+
+    private long lastSequenceOfSealedSegments() throws IOException {
+        List<Path> files = segmentFiles();
+        String activeName = files.get(files.size() - 1).getFileName().toString();
+        return Long.parseLong(activeName.substring(0, activeName.indexOf('.'))) - 1;
+    }
+
+    private void makeSegmentsOld() throws IOException {
+        FileTime lastWeek = FileTime.from(Instant.now().minus(7, ChronoUnit.DAYS));
+        for (Path file : segmentFiles()) {
+            Files.setLastModifiedTime(file, lastWeek);
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+
+    private static UserEvent event(UserEventType type, long userId, String username, Role role) {
+        return new UserEvent(0, System.currentTimeMillis(), type, userId, username, role, "Naivasha");
+    }
+}
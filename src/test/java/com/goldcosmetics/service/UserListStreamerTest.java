@@ -0,0 +1,98 @@
+package com.goldcosmetics.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.goldcosmetics.model.Role;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The admin API's list ETag and streamed list against a real PostgreSQL
+ */
+class UserListStreamerTest {
+
+    private static EmbeddedPostgres postgres;
+
+    private JdbcTemplate jdbcTemplate;
+    private UserListStreamer streamer;
+
+    @BeforeAll
+    static void startDatabase() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        Flyway.configure().dataSource(postgres.getPostgresDatabase()).load().migrate();
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = postgres.getPostgresDatabase();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("truncate users restart identity");
+
+        streamer = new UserListStreamer();
+        ReflectionTestUtils.setField(streamer, "dataSource", dataSource);
+        ReflectionTestUtils.setField(streamer, "transactionManager", new DataSourceTransactionManager(dataSource));
+        ReflectionTestUtils.setField(streamer, "objectMapper", new ObjectMapper().registerModule(new JavaTimeModule()));
+        streamer.start();
+    }
+
+    @Test
+    void listsWithTheSameIdAndVersionTotalsGetDifferentTags() {
+        insertUser("angela", 0);
+        insertUser("brian", 1);
+        String before = streamer.listTag(null, null);
+
+        // Same count, same sum of ids and of versions - only the pairs differ
+        jdbcTemplate.update("update users set version = 1 where username = 'angela'");
+        jdbcTemplate.update("update users set version = 0 where username = 'brian'");
+
+        assertThat(streamer.listTag(null, null)).isNotEqualTo(before);
+    }
+
+    @Test
+    void loginDoesNotChangeTheTagOrTheList() throws IOException {
+        insertUser("angela", 0);
+        String tag = streamer.listTag(Role.CUSTOMER, true);
+        String list = list();
+
+        jdbcTemplate.update("update users set last_login_at = now() where username = 'angela'");
+
+        assertThat(streamer.listTag(Role.CUSTOMER, true)).isEqualTo(tag);
+        assertThat(list()).isEqualTo(list).contains("angela").doesNotContain("lastLogin");
+    }
+
+    @Test
+    void emptyListHasATag() {
+        assertThat(streamer.listTag(Role.ADMIN, null)).isEqualTo("\"users-0-\"");
+    }
+
+    private String list() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        streamer.writeList(Role.CUSTOMER, true, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private void insertUser(String username, long version) {
+        jdbcTemplate.update(
+                "insert into users (username, email, password, full_name, role, is_active, created_at, updated_at, version) "
+              + "values (?, ?, 'x', ?, 'CUSTOMER', true, now(), now(), ?)",
+                username, username + "@example.com", username, version);
+    }
+}